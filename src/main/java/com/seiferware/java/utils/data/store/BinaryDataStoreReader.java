@@ -2,25 +2,34 @@ package com.seiferware.java.utils.data.store;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
  * An implementation of {@link DataStoreReader} used to read data stored by {@link BinaryDataStoreWriter}.
+ * <p>
+ * Like every {@link DataStoreReader}, an instance keeps its position in the data, so it must only be used by one
+ * thread at a time. To read the same data from several threads, give each thread its own cursor from {@link
+ * #newCursor()}. Cursors share the loaded data, which is never modified once it has been parsed.
  *
  * @see DataStoreReader
  * @see BinaryDataStoreWriter
  */
 public class BinaryDataStoreReader extends DataStoreReader {
 	protected final InputStream in;
+	protected final ByteBuffer data;
 	protected final DataObject root;
 	protected final Map<String, DataObject> lockMap = new HashMap<>();
 	protected DataObject active;
 	/**
-	 * Creates a new BinaryDataStoreReader that reads from {@code in}. The entire data tree is deserialized and stored
-	 * internally before the constructor exits.
+	 * Creates a new BinaryDataStoreReader that reads from {@code in}. The stream is read to its end before the
+	 * constructor exits. Complex objects and arrays are only parsed when they are first entered, and string keys and
+	 * values are kept as references into the raw data, which are only decoded when they are read.
 	 *
 	 * @param in
 	 * 		The stream from which to read the stored data.
@@ -29,69 +38,55 @@ public class BinaryDataStoreReader extends DataStoreReader {
 	 * 		If thrown from the {@link InputStream}.
 	 */
 	public BinaryDataStoreReader(@NotNull InputStream in) throws IOException {
+		this(in, readFully(in));
+	}
+	/**
+	 * Creates a new BinaryDataStoreReader that reads from a byte array. The array is not copied, and must not be
+	 * modified while the reader is in use.
+	 *
+	 * @param data
+	 * 		The stored data.
+	 */
+	public BinaryDataStoreReader(@NotNull byte[] data) {
+		this(data, 0, data.length);
+	}
+	/**
+	 * Creates a new BinaryDataStoreReader that reads from a range of a byte array. The array is not copied, and must
+	 * not be modified while the reader is in use.
+	 *
+	 * @param data
+	 * 		The array containing the stored data.
+	 * @param offset
+	 * 		The index of the first byte of the stored data.
+	 * @param length
+	 * 		The number of bytes of stored data.
+	 */
+	public BinaryDataStoreReader(@NotNull byte[] data, int offset, int length) {
+		this(new ByteArrayInputStream(data, offset, length), ByteBuffer.wrap(data, offset, length));
+	}
+	private BinaryDataStoreReader(@NotNull InputStream in, @NotNull ByteBuffer data) {
 		this.in = in;
+		this.data = data;
 		root = new DataObject();
+		parse(data.duplicate(), root);
 		active = root;
-		for(; ; ) {
-			int x = in.read();
-			if(x == -1) {
-				break;
-			}
-			switch((byte) x) {
-				case BinaryDataStoreWriter.TYPE_ARRAY:
-					active = active.newChild(inString(), true);
-					break;
-				case BinaryDataStoreWriter.TYPE_BOOLEAN_TRUE:
-					active.items.put(inString(), true);
-					break;
-				case BinaryDataStoreWriter.TYPE_BOOLEAN_FALSE:
-					active.items.put(inString(), false);
-					break;
-				case BinaryDataStoreWriter.TYPE_DOUBLE:
-					active.items.put(inString(), inDouble());
-					break;
-				case BinaryDataStoreWriter.TYPE_END:
-					active = active.parent;
-					break;
-				case BinaryDataStoreWriter.TYPE_FLOAT:
-					active.items.put(inString(), inFloat());
-					break;
-				case BinaryDataStoreWriter.TYPE_INT:
-					active.items.put(inString(), inInt());
-					break;
-				case BinaryDataStoreWriter.TYPE_OBJECT:
-					if(active.isArray) {
-						active = active.newChild(active.items.size() + "", false);
-					} else {
-						active = active.newChild(inString(), false);
-					}
-					break;
-				case BinaryDataStoreWriter.TYPE_STRING_ARRAY:
-					List<String> l = new ArrayList<>();
-					String name = inString();
-					int len = inInt();
-					for(int i = 0; i < len; i++) {
-						l.add(inString());
-					}
-					active.items.put(name, l.toArray(new String[l.size()]));
-					break;
-				case BinaryDataStoreWriter.TYPE_STRING:
-				case BinaryDataStoreWriter.TYPE_ENUM:
-					active.items.put(inString(), inString());
-					break;
-				case BinaryDataStoreWriter.TYPE_BYTE:
-					active.items.put(inString(), inByte());
-					break;
-				case BinaryDataStoreWriter.TYPE_CHAR:
-					active.items.put(inString(), inString().charAt(0));
-					break;
-				case BinaryDataStoreWriter.TYPE_LONG:
-					active.items.put(inString(), inLong());
-					break;
-			}
-		}
+	}
+	private BinaryDataStoreReader(@NotNull BinaryDataStoreReader source) {
+		in = source.in;
+		data = source.data;
+		root = source.root;
 		active = root;
 	}
+	@NotNull
+	private static ByteBuffer readFully(@NotNull InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] b = new byte[8192];
+		int n;
+		while((n = in.read(b)) != -1) {
+			out.write(b, 0, n);
+		}
+		return ByteBuffer.wrap(out.toByteArray());
+	}
 	protected void checkArray(boolean shouldBeArray) {
 		if(shouldBeArray != isArray()) {
 			throw new IllegalStateException("Operation is " + (isArray() ? "not" : "only") + " valid while operating on an array.");
@@ -121,17 +116,18 @@ public class BinaryDataStoreReader extends DataStoreReader {
 		if(!temp.isArray) {
 			throw new IncompatibleTypeException();
 		}
+		temp.ensureParsed();
 		active = temp;
 	}
 	@Override
 	public void enterArrayElement(int index) {
 		checkArray(true);
-		try {
-			active = get(index + "", DataObject.class);
-		} catch (EntryNotFoundException e) {
+		if(index < 0 || index >= active.elements.size()) {
 			throw new IndexOutOfBoundsException();
-		} catch (IncompatibleTypeException ignored) {
 		}
+		DataObject temp = active.elements.get(index);
+		temp.ensureParsed();
+		active = temp;
 	}
 	@Override
 	public void enterComplex(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
@@ -140,6 +136,7 @@ public class BinaryDataStoreReader extends DataStoreReader {
 		if(temp.isArray) {
 			throw new IncompatibleTypeException();
 		}
+		temp.ensureParsed();
 		active = temp;
 	}
 	@Override
@@ -163,7 +160,7 @@ public class BinaryDataStoreReader extends DataStoreReader {
 	}
 	@NotNull
 	protected <T> T get(@NotNull String name, @NotNull Class<T> cls) throws EntryNotFoundException, IncompatibleTypeException {
-		Object entry = active.items.get(name);
+		Object entry = active.items.get(new Utf8Slice(name));
 		if(entry == null) {
 			throw new EntryNotFoundException();
 		} else if(!cls.isInstance(entry)) {
@@ -174,43 +171,16 @@ public class BinaryDataStoreReader extends DataStoreReader {
 	@Override
 	public int getArrayLength() {
 		if(active.isArray) {
-			return active.items.size();
+			return active.elements.size();
 		}
 		throw new IllegalStateException();
 	}
-	protected byte inByte() throws IOException {
-		byte[] b = new byte[1];
-		in.read(b);
-		return b[0];
-	}
-	protected double inDouble() throws IOException {
-		byte[] b = new byte[8];
-		in.read(b);
-		return ByteBuffer.allocate(8).put(b).getDouble(0);
-	}
-	protected float inFloat() throws IOException {
-		byte[] b = new byte[4];
-		in.read(b);
-		return ByteBuffer.allocate(4).put(b).getFloat(0);
-	}
-	protected int inInt() throws IOException {
-		byte[] b = new byte[4];
-		in.read(b);
-		return ByteBuffer.allocate(4).put(b).getInt(0);
-	}
-	protected long inLong() throws IOException {
-		byte[] b = new byte[8];
-		in.read(b);
-		return ByteBuffer.allocate(8).put(b).getLong(0);
-	}
 	@NotNull
-	protected String inString() throws IOException {
-		byte[] b = new byte[2];
-		in.read(b);
-		int len = ByteBuffer.allocate(2).put(b).getShort(0);
-		b = new byte[len];
-		in.read(b);
-		return new String(b);
+	private static Utf8Slice inSlice(@NotNull ByteBuffer in) {
+		int len = in.getShort() & 0xFFFF;
+		Utf8Slice res = new Utf8Slice(in.array(), in.arrayOffset() + in.position(), len);
+		in.position(in.position() + len);
+		return res;
 	}
 	protected boolean isArray() {
 		return active.isArray;
@@ -266,17 +236,176 @@ public class BinaryDataStoreReader extends DataStoreReader {
 	public void loadBookmark(@NotNull ReaderBookmark bookmark) {
 		active = ((Bookmark) bookmark).place;
 	}
+	/**
+	 * Creates an independent reader over the same data, positioned at the root. The data is not copied or parsed again,
+	 * so this is cheap, and the new reader may be used by another thread at the same time as this one. Each cursor has
+	 * its own position, bookmarks and locks.
+	 *
+	 * @return The new cursor.
+	 */
+	@NotNull
+	public BinaryDataStoreReader newCursor() {
+		return new BinaryDataStoreReader(this);
+	}
+	/**
+	 * Builds the content of {@code target} from {@code in}, which must be positioned at its first entry. Parsing stops
+	 * at the end of the buffer or at the end of {@code target}. Complex objects and arrays that were written with their
+	 * length are not parsed here; their position is recorded, and they are parsed when they are first entered.
+	 */
+	private void parse(@NotNull ByteBuffer in, @NotNull DataObject target) {
+		DataObject current = target;
+		while(in.hasRemaining()) {
+			byte type = in.get();
+			switch(type) {
+				case BinaryDataStoreWriter.TYPE_ARRAY:
+					current = current.newChild(inSlice(in), true);
+					break;
+				case BinaryDataStoreWriter.TYPE_BOOLEAN_TRUE:
+					current.items.put(inSlice(in), true);
+					break;
+				case BinaryDataStoreWriter.TYPE_BOOLEAN_FALSE:
+					current.items.put(inSlice(in), false);
+					break;
+				case BinaryDataStoreWriter.TYPE_DOUBLE:
+					current.items.put(inSlice(in), in.getDouble());
+					break;
+				case BinaryDataStoreWriter.TYPE_END:
+					if(current == target) {
+						return;
+					}
+					current = current.parent;
+					break;
+				case BinaryDataStoreWriter.TYPE_FLOAT:
+					current.items.put(inSlice(in), in.getFloat());
+					break;
+				case BinaryDataStoreWriter.TYPE_INT:
+					current.items.put(inSlice(in), in.getInt());
+					break;
+				case BinaryDataStoreWriter.TYPE_OBJECT:
+					if(current.isArray) {
+						// Array elements are written with their index as the name, but they are read in order.
+						inSlice(in);
+						current = current.newElement();
+					} else {
+						current = current.newChild(inSlice(in), false);
+					}
+					break;
+				case BinaryDataStoreWriter.TYPE_SIZED_ARRAY:
+				case BinaryDataStoreWriter.TYPE_SIZED_OBJECT:
+					DataObject child;
+					if(current.isArray) {
+						inSlice(in);
+						child = current.newElement();
+					} else {
+						child = current.newChild(inSlice(in), type == BinaryDataStoreWriter.TYPE_SIZED_ARRAY);
+					}
+					int length = in.getInt();
+					child.start = in.position();
+					child.end = child.start + length;
+					child.parsed = false;
+					in.position(child.end);
+					break;
+				case BinaryDataStoreWriter.TYPE_STRING_ARRAY:
+					Utf8Slice name = inSlice(in);
+					Utf8Slice[] l = new Utf8Slice[in.getInt()];
+					for(int i = 0; i < l.length; i++) {
+						l[i] = inSlice(in);
+					}
+					current.items.put(name, l);
+					break;
+				case BinaryDataStoreWriter.TYPE_STRING:
+				case BinaryDataStoreWriter.TYPE_ENUM:
+				case BinaryDataStoreWriter.TYPE_CHAR:
+					current.items.put(inSlice(in), inSlice(in));
+					break;
+				case BinaryDataStoreWriter.TYPE_BYTE:
+					current.items.put(inSlice(in), in.get());
+					break;
+				case BinaryDataStoreWriter.TYPE_LONG:
+					current.items.put(inSlice(in), in.getLong());
+					break;
+				case BinaryDataStoreWriter.TYPE_INT_ARRAY:
+					Utf8Slice iname = inSlice(in);
+					int[] ia = new int[in.getInt()];
+					in.asIntBuffer().get(ia);
+					in.position(in.position() + ia.length * 4);
+					current.items.put(iname, ia);
+					break;
+				case BinaryDataStoreWriter.TYPE_LONG_ARRAY:
+					Utf8Slice lname = inSlice(in);
+					long[] la = new long[in.getInt()];
+					in.asLongBuffer().get(la);
+					in.position(in.position() + la.length * 8);
+					current.items.put(lname, la);
+					break;
+				case BinaryDataStoreWriter.TYPE_FLOAT_ARRAY:
+					Utf8Slice fname = inSlice(in);
+					float[] fa = new float[in.getInt()];
+					in.asFloatBuffer().get(fa);
+					in.position(in.position() + fa.length * 4);
+					current.items.put(fname, fa);
+					break;
+				case BinaryDataStoreWriter.TYPE_DOUBLE_ARRAY:
+					Utf8Slice dname = inSlice(in);
+					double[] da = new double[in.getInt()];
+					in.asDoubleBuffer().get(da);
+					in.position(in.position() + da.length * 8);
+					current.items.put(dname, da);
+					break;
+				case BinaryDataStoreWriter.TYPE_BOOLEAN_ARRAY:
+					Utf8Slice zname = inSlice(in);
+					boolean[] za = new boolean[in.getInt()];
+					for(int i = 0; i < za.length; i++) {
+						za[i] = in.get() != 0;
+					}
+					current.items.put(zname, za);
+					break;
+				case BinaryDataStoreWriter.TYPE_BYTE_ARRAY:
+					Utf8Slice bname = inSlice(in);
+					byte[] ba = new byte[in.getInt()];
+					in.get(ba);
+					current.items.put(bname, ba);
+					break;
+				case BinaryDataStoreWriter.TYPE_CHAR_ARRAY:
+					Utf8Slice cname = inSlice(in);
+					char[] ca = new char[in.getInt()];
+					in.asCharBuffer().get(ca);
+					in.position(in.position() + ca.length * 2);
+					current.items.put(cname, ca);
+					break;
+			}
+		}
+	}
 	@Override
 	public boolean readBoolean(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
 		return get(name, Boolean.class);
 	}
+	@NotNull
+	@Override
+	public boolean[] readBooleanArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		return get(name, boolean[].class).clone();
+	}
 	@Override
 	public byte readByte(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
 		return get(name, Byte.class);
 	}
+	@NotNull
+	@Override
+	public byte[] readByteArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		return get(name, byte[].class).clone();
+	}
 	@Override
 	public char readChar(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
-		return 0;
+		String v = get(name, Utf8Slice.class).toString();
+		if(v.length() != 1) {
+			throw new IncompatibleTypeException();
+		}
+		return v.charAt(0);
+	}
+	@NotNull
+	@Override
+	public char[] readCharArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		return get(name, char[].class).clone();
 	}
 	@Override
 	public double readDouble(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
@@ -284,10 +413,15 @@ public class BinaryDataStoreReader extends DataStoreReader {
 	}
 	@NotNull
 	@Override
+	public double[] readDoubleArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		return get(name, double[].class).clone();
+	}
+	@NotNull
+	@Override
 	public <E extends Enum<E>> EnumSet<E> readEnum(@NotNull String name, @NotNull Class<E> type) throws EntryNotFoundException, IncompatibleTypeException {
 		checkArray(false);
 		EnumSet<E> result = EnumSet.noneOf(type);
-		String flaglist = get(name, String.class);
+		String flaglist = get(name, Utf8Slice.class).toString();
 		if(flaglist.length() == 0) {
 			return result;
 		}
@@ -301,23 +435,43 @@ public class BinaryDataStoreReader extends DataStoreReader {
 	public float readFloat(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
 		return get(name, Float.class);
 	}
+	@NotNull
+	@Override
+	public float[] readFloatArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		return get(name, float[].class).clone();
+	}
 	@Override
 	public int readInt(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
 		return get(name, Integer.class);
 	}
+	@NotNull
+	@Override
+	public int[] readIntArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		return get(name, int[].class).clone();
+	}
 	@Override
 	public long readLong(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
 		return get(name, Long.class);
 	}
 	@NotNull
 	@Override
+	public long[] readLongArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		return get(name, long[].class).clone();
+	}
+	@NotNull
+	@Override
 	public String readString(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
-		return get(name, String.class);
+		return get(name, Utf8Slice.class).toString();
 	}
 	@NotNull
 	@Override
 	public String[] readStringArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
-		return get(name, String[].class);
+		Utf8Slice[] slices = get(name, Utf8Slice[].class);
+		String[] result = new String[slices.length];
+		for(int i = 0; i < slices.length; i++) {
+			result[i] = slices[i].toString();
+		}
+		return result;
 	}
 	@Override
 	protected void registerLock(@NotNull String id) {
@@ -338,13 +492,99 @@ public class BinaryDataStoreReader extends DataStoreReader {
 	private class DataObject {
 		DataObject parent;
 		boolean isArray;
-		Map<String, Object> items = new HashMap<>();
-		@NotNull DataObject newChild(@NotNull String name, boolean isArray) {
+		Map<Utf8Slice, Object> items = new HashMap<>();
+		List<DataObject> elements;
+		volatile boolean parsed = true;
+		int start;
+		int end;
+		void ensureParsed() {
+			if(!parsed) {
+				synchronized(this) {
+					if(!parsed) {
+						ByteBuffer in = data.duplicate();
+						in.limit(end);
+						in.position(start);
+						parse(in, this);
+						parsed = true;
+					}
+				}
+			}
+		}
+		@NotNull DataObject newChild(@NotNull Utf8Slice name, boolean isArray) {
 			DataObject res = new DataObject();
 			res.parent = this;
 			res.isArray = isArray;
+			if(isArray) {
+				res.elements = new ArrayList<>();
+			}
 			items.put(name, res);
 			return res;
 		}
+		@NotNull DataObject newElement() {
+			DataObject res = new DataObject();
+			res.parent = this;
+			elements.add(res);
+			return res;
+		}
+	}
+	
+	/**
+	 * A view of a UTF-8 encoded string within the raw data. Keys are compared by their encoded bytes, and values are
+	 * only decoded the first time they are requested. Cursors on several threads may decode the same value at once,
+	 * which is harmless since they produce equal strings.
+	 */
+	private static final class Utf8Slice {
+		private final byte[] bytes;
+		private final int offset;
+		private final int length;
+		private final int hash;
+		private String decoded;
+		Utf8Slice(@NotNull String value) {
+			this(value.getBytes(StandardCharsets.UTF_8));
+			decoded = value;
+		}
+		Utf8Slice(@NotNull byte[] bytes) {
+			this(bytes, 0, bytes.length);
+		}
+		Utf8Slice(@NotNull byte[] bytes, int offset, int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+			int h = 1;
+			for(int i = offset; i < offset + length; i++) {
+				h = 31 * h + bytes[i];
+			}
+			hash = h;
+		}
+		@Override
+		public boolean equals(Object obj) {
+			if(this == obj) {
+				return true;
+			}
+			if(!(obj instanceof Utf8Slice)) {
+				return false;
+			}
+			Utf8Slice other = (Utf8Slice) obj;
+			if(other.length != length || other.hash != hash) {
+				return false;
+			}
+			for(int i = 0; i < length; i++) {
+				if(bytes[offset + i] != other.bytes[other.offset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		@Override
+		public String toString() {
+			if(decoded == null) {
+				decoded = new String(bytes, offset, length, StandardCharsets.UTF_8);
+			}
+			return decoded;
+		}
 	}
 }
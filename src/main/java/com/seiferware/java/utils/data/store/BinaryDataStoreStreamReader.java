@@ -0,0 +1,203 @@
+package com.seiferware.java.utils.data.store;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An implementation of {@link DataStoreStreamReader} for data stored by {@link BinaryDataStoreWriter}. Only the
+ * current value and the path from the root to the current position are held in memory.
+ *
+ * @see DataStoreStreamReader
+ * @see BinaryDataStoreReader
+ */
+public class BinaryDataStoreStreamReader extends DataStoreStreamReader {
+	protected final DataInputStream in;
+	private boolean[] arrays = new boolean[16];
+	private int[] counts = new int[16];
+	private int depth = 0;
+	/**
+	 * Creates a new instance that reads from {@code in}. Nothing is read until {@link #next(DataStoreVisitor)} or
+	 * {@link #accept(DataStoreVisitor)} is called.
+	 *
+	 * @param in
+	 * 		The stream from which to read the stored data.
+	 */
+	public BinaryDataStoreStreamReader(@NotNull InputStream in) {
+		this.in = new DataInputStream(in instanceof BufferedInputStream ? in : new BufferedInputStream(in));
+	}
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+	@NotNull
+	protected String inString() throws IOException {
+		byte[] b = new byte[in.readUnsignedShort()];
+		in.readFully(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+	@Override
+	public boolean next(@NotNull DataStoreVisitor visitor) throws IOException {
+		int x = in.read();
+		if(x == -1) {
+			if(depth > 0) {
+				throw new IOException("Unexpected end of data with " + depth + " open contexts.");
+			}
+			return false;
+		}
+		switch((byte) x) {
+			case BinaryDataStoreWriter.TYPE_ARRAY:
+			case BinaryDataStoreWriter.TYPE_SIZED_ARRAY:
+				String aname = inString();
+				skipLength(x);
+				visitor.startArray(push(aname, true));
+				break;
+			case BinaryDataStoreWriter.TYPE_BOOLEAN_TRUE:
+				visitor.booleanValue(inString(), true);
+				break;
+			case BinaryDataStoreWriter.TYPE_BOOLEAN_FALSE:
+				visitor.booleanValue(inString(), false);
+				break;
+			case BinaryDataStoreWriter.TYPE_DOUBLE:
+				visitor.doubleValue(inString(), in.readDouble());
+				break;
+			case BinaryDataStoreWriter.TYPE_END:
+				if(depth == 0) {
+					throw new IOException("Unexpected end of context at the root.");
+				}
+				depth--;
+				visitor.end();
+				break;
+			case BinaryDataStoreWriter.TYPE_FLOAT:
+				visitor.floatValue(inString(), in.readFloat());
+				break;
+			case BinaryDataStoreWriter.TYPE_INT:
+				visitor.intValue(inString(), in.readInt());
+				break;
+			case BinaryDataStoreWriter.TYPE_OBJECT:
+			case BinaryDataStoreWriter.TYPE_SIZED_OBJECT:
+				if(depth > 0 && arrays[depth - 1]) {
+					// Array elements are written with their index as the name, but they are read in order.
+					int index = counts[depth - 1]++;
+					in.skipBytes(in.readUnsignedShort());
+					skipLength(x);
+					push(null, false);
+					visitor.startArrayElement(index);
+				} else {
+					String oname = inString();
+					skipLength(x);
+					visitor.startComplex(push(oname, false));
+				}
+				break;
+			case BinaryDataStoreWriter.TYPE_STRING_ARRAY:
+				String name = inString();
+				String[] l = new String[in.readInt()];
+				for(int i = 0; i < l.length; i++) {
+					l[i] = inString();
+				}
+				visitor.stringArrayValue(name, l);
+				break;
+			case BinaryDataStoreWriter.TYPE_STRING:
+				visitor.stringValue(inString(), inString());
+				break;
+			case BinaryDataStoreWriter.TYPE_ENUM:
+				visitor.enumValue(inString(), inString());
+				break;
+			case BinaryDataStoreWriter.TYPE_BYTE:
+				visitor.byteValue(inString(), in.readByte());
+				break;
+			case BinaryDataStoreWriter.TYPE_CHAR:
+				String cname = inString();
+				String c = inString();
+				if(c.length() != 1) {
+					throw new IOException("Malformed char value for " + cname + ".");
+				}
+				visitor.charValue(cname, c.charAt(0));
+				break;
+			case BinaryDataStoreWriter.TYPE_LONG:
+				visitor.longValue(inString(), in.readLong());
+				break;
+			case BinaryDataStoreWriter.TYPE_INT_ARRAY:
+				String iname = inString();
+				int[] ia = new int[in.readInt()];
+				for(int i = 0; i < ia.length; i++) {
+					ia[i] = in.readInt();
+				}
+				visitor.intArrayValue(iname, ia);
+				break;
+			case BinaryDataStoreWriter.TYPE_LONG_ARRAY:
+				String lname = inString();
+				long[] la = new long[in.readInt()];
+				for(int i = 0; i < la.length; i++) {
+					la[i] = in.readLong();
+				}
+				visitor.longArrayValue(lname, la);
+				break;
+			case BinaryDataStoreWriter.TYPE_FLOAT_ARRAY:
+				String fname = inString();
+				float[] fa = new float[in.readInt()];
+				for(int i = 0; i < fa.length; i++) {
+					fa[i] = in.readFloat();
+				}
+				visitor.floatArrayValue(fname, fa);
+				break;
+			case BinaryDataStoreWriter.TYPE_DOUBLE_ARRAY:
+				String dname = inString();
+				double[] da = new double[in.readInt()];
+				for(int i = 0; i < da.length; i++) {
+					da[i] = in.readDouble();
+				}
+				visitor.doubleArrayValue(dname, da);
+				break;
+			case BinaryDataStoreWriter.TYPE_BOOLEAN_ARRAY:
+				String zname = inString();
+				boolean[] za = new boolean[in.readInt()];
+				for(int i = 0; i < za.length; i++) {
+					za[i] = in.readByte() != 0;
+				}
+				visitor.booleanArrayValue(zname, za);
+				break;
+			case BinaryDataStoreWriter.TYPE_BYTE_ARRAY:
+				String bname = inString();
+				byte[] ba = new byte[in.readInt()];
+				in.readFully(ba);
+				visitor.byteArrayValue(bname, ba);
+				break;
+			case BinaryDataStoreWriter.TYPE_CHAR_ARRAY:
+				String chname = inString();
+				char[] ca = new char[in.readInt()];
+				for(int i = 0; i < ca.length; i++) {
+					ca[i] = in.readChar();
+				}
+				visitor.charArrayValue(chname, ca);
+				break;
+			default:
+				throw new IOException("Unknown value type " + x + ".");
+		}
+		return true;
+	}
+	private String push(String name, boolean isArray) {
+		if(depth == arrays.length) {
+			boolean[] a = new boolean[depth * 2];
+			int[] c = new int[depth * 2];
+			System.arraycopy(arrays, 0, a, 0, depth);
+			System.arraycopy(counts, 0, c, 0, depth);
+			arrays = a;
+			counts = c;
+		}
+		arrays[depth] = isArray;
+		counts[depth] = 0;
+		depth++;
+		return name;
+	}
+	private void skipLength(int type) throws IOException {
+		if(type == BinaryDataStoreWriter.TYPE_SIZED_OBJECT || type == BinaryDataStoreWriter.TYPE_SIZED_ARRAY) {
+			// The length is only needed by readers that can skip content.
+			in.readInt();
+		}
+	}
+}
@@ -2,13 +2,18 @@ package com.seiferware.java.utils.data.store;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
- * An implementation of {@link DataStoreWriter} that stores data in a very compact, byte-oriented format.
+ * An implementation of {@link DataStoreWriter} that stores data in a very compact, byte-oriented format. Strings are
+ * always encoded as UTF-8, regardless of the platform default charset.
+ * <p>
+ * Complex objects and arrays are written with the length of their content, so that a reader can skip over the parts of
+ * the data it does not need without decoding them.
  *
  * @see DataStoreWriter
  * @see BinaryDataStoreReader
@@ -28,10 +33,19 @@ public class BinaryDataStoreWriter extends DataStoreWriter {
 	static final byte TYPE_END = 'z';
 	static final byte TYPE_CHAR = 'c';
 	static final byte TYPE_STRING_ARRAY = 'S';
+	static final byte TYPE_SIZED_OBJECT = 'O';
+	static final byte TYPE_SIZED_ARRAY = 'A';
+	static final byte TYPE_INT_ARRAY = 'I';
+	static final byte TYPE_LONG_ARRAY = 'L';
+	static final byte TYPE_FLOAT_ARRAY = 'F';
+	static final byte TYPE_DOUBLE_ARRAY = 'D';
+	static final byte TYPE_BOOLEAN_ARRAY = 'Y';
+	static final byte TYPE_BYTE_ARRAY = 'B';
+	static final byte TYPE_CHAR_ARRAY = 'C';
 	protected final Map<String, DataObject> lockMap = new HashMap<>();
 	private final DataObject root = new DataObject();
-	private OutputStream out;
-	private DataObject active;
+	private Buffer out;
+	private DataObject active = root;
 	protected void checkArray(boolean shouldBeArray) {
 		if(shouldBeArray != isArray()) {
 			throw new IllegalStateException("Operation is " + (isArray() ? "not" : "only") + " valid while operating on an array.");
@@ -157,8 +171,13 @@ public class BinaryDataStoreWriter extends DataStoreWriter {
 	 * 		The stream to which the data will be written.
 	 */
 	public void save(@NotNull OutputStream out) {
-		this.out = out;
+		this.out = new Buffer();
 		writeRawObject(root);
+		try {
+			this.out.writeTo(out);
+		} catch (IOException ignored) {
+		}
+		this.out = null;
 	}
 	@Override
 	public void writeBoolean(@NotNull String name, boolean value) {
@@ -166,21 +185,41 @@ public class BinaryDataStoreWriter extends DataStoreWriter {
 		active.items.put(name, value);
 	}
 	@Override
+	public void writeBooleanArray(@NotNull String name, @NotNull boolean[] value) {
+		checkArray(false);
+		active.items.put(name, value);
+	}
+	@Override
 	public void writeByte(@NotNull String name, byte value) {
 		checkArray(false);
 		active.items.put(name, value);
 	}
 	@Override
+	public void writeByteArray(@NotNull String name, @NotNull byte[] value) {
+		checkArray(false);
+		active.items.put(name, value);
+	}
+	@Override
 	public void writeChar(@NotNull String name, char value) {
 		checkArray(false);
 		active.items.put(name, value);
 	}
 	@Override
+	public void writeCharArray(@NotNull String name, @NotNull char[] value) {
+		checkArray(false);
+		active.items.put(name, value);
+	}
+	@Override
 	public void writeDouble(@NotNull String name, double value) {
 		checkArray(false);
 		active.items.put(name, value);
 	}
 	@Override
+	public void writeDoubleArray(@NotNull String name, @NotNull double[] value) {
+		checkArray(false);
+		active.items.put(name, value);
+	}
+	@Override
 	public <E extends Enum<E>> void writeEnum(@NotNull String name, @NotNull EnumSet<E> value, @NotNull Class<E> type) {
 		checkArray(false);
 		active.items.put(name, value);
@@ -191,15 +230,35 @@ public class BinaryDataStoreWriter extends DataStoreWriter {
 		active.items.put(name, value);
 	}
 	@Override
+	public void writeFloatArray(@NotNull String name, @NotNull float[] value) {
+		checkArray(false);
+		active.items.put(name, value);
+	}
+	@Override
 	public void writeInt(@NotNull String name, int value) {
 		checkArray(false);
 		active.items.put(name, value);
 	}
 	@Override
+	public void writeIntArray(@NotNull String name, @NotNull int[] value) {
+		checkArray(false);
+		active.items.put(name, value);
+	}
+	@Override
 	public void writeLong(@NotNull String name, long value) {
 		checkArray(false);
 		active.items.put(name, value);
 	}
+	@Override
+	public void writeLongArray(@NotNull String name, @NotNull long[] value) {
+		checkArray(false);
+		active.items.put(name, value);
+	}
+	private void writeRawArrayHeader(byte type, @NotNull String name, int length) {
+		writeRawData(type);
+		writeString(name);
+		writeRawData(length);
+	}
 	private void writeRawBoolean(@NotNull String name, boolean value) {
 		writeRawData(value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
 		writeString(name);
@@ -215,46 +274,30 @@ public class BinaryDataStoreWriter extends DataStoreWriter {
 		writeString(String.valueOf(value));
 	}
 	private void writeRawData(short n) {
-		try {
-			out.write(ByteBuffer.allocate(2).putShort(n).array());
-		} catch (IOException ignored) {
-		}
+		out.write(n >>> 8);
+		out.write(n);
 	}
 	private void writeRawData(int n) {
-		try {
-			out.write(ByteBuffer.allocate(4).putInt(n).array());
-		} catch (IOException ignored) {
-		}
+		out.write(n >>> 24);
+		out.write(n >>> 16);
+		out.write(n >>> 8);
+		out.write(n);
 	}
 	private void writeRawData(long n) {
-		try {
-			out.write(ByteBuffer.allocate(8).putLong(n).array());
-		} catch (IOException ignored) {
-		}
+		writeRawData((int) (n >>> 32));
+		writeRawData((int) n);
 	}
 	private void writeRawData(float n) {
-		try {
-			out.write(ByteBuffer.allocate(4).putFloat(n).array());
-		} catch (IOException ignored) {
-		}
+		writeRawData(Float.floatToIntBits(n));
 	}
 	private void writeRawData(double n) {
-		try {
-			out.write(ByteBuffer.allocate(8).putDouble(n).array());
-		} catch (IOException ignored) {
-		}
+		writeRawData(Double.doubleToLongBits(n));
 	}
 	private void writeRawData(byte b) {
-		try {
-			out.write(b);
-		} catch (IOException ignored) {
-		}
+		out.write(b);
 	}
 	private void writeRawData(@NotNull byte[] b) {
-		try {
-			out.write(b);
-		} catch (IOException ignored) {
-		}
+		out.write(b, 0, b.length);
 	}
 	private void writeRawDouble(@NotNull String name, double value) {
 		writeRawData(TYPE_DOUBLE);
@@ -311,14 +354,19 @@ public class BinaryDataStoreWriter extends DataStoreWriter {
 				writeRawByte(key, (Byte) o);
 			} else if(o instanceof EnumSet) {
 				writeRawEnum(key, (EnumSet<?>) o);
+			} else if(o.getClass().isArray()) {
+				writeRawValueArray(key, o);
 			}
 		}
 	}
 	private void writeRawObject(@NotNull String name, @NotNull DataObject value) {
-		writeRawData(value.isArray ? TYPE_ARRAY : TYPE_OBJECT);
+		writeRawData(value.isArray ? TYPE_SIZED_ARRAY : TYPE_SIZED_OBJECT);
 		writeString(name);
+		int mark = out.size();
+		writeRawData(0);
 		writeRawObject(value);
 		writeRawData(TYPE_END);
+		out.setInt(mark, out.size() - mark - 4);
 	}
 	private void writeRawString(@NotNull String name, @NotNull String value) {
 		writeRawData(TYPE_STRING);
@@ -333,13 +381,56 @@ public class BinaryDataStoreWriter extends DataStoreWriter {
 			writeString(s);
 		}
 	}
+	private void writeRawValueArray(@NotNull String name, @NotNull Object value) {
+		if(value instanceof int[]) {
+			int[] a = (int[]) value;
+			writeRawArrayHeader(TYPE_INT_ARRAY, name, a.length);
+			for(int n : a) {
+				writeRawData(n);
+			}
+		} else if(value instanceof long[]) {
+			long[] a = (long[]) value;
+			writeRawArrayHeader(TYPE_LONG_ARRAY, name, a.length);
+			for(long n : a) {
+				writeRawData(n);
+			}
+		} else if(value instanceof float[]) {
+			float[] a = (float[]) value;
+			writeRawArrayHeader(TYPE_FLOAT_ARRAY, name, a.length);
+			for(float n : a) {
+				writeRawData(n);
+			}
+		} else if(value instanceof double[]) {
+			double[] a = (double[]) value;
+			writeRawArrayHeader(TYPE_DOUBLE_ARRAY, name, a.length);
+			for(double n : a) {
+				writeRawData(n);
+			}
+		} else if(value instanceof boolean[]) {
+			boolean[] a = (boolean[]) value;
+			writeRawArrayHeader(TYPE_BOOLEAN_ARRAY, name, a.length);
+			for(boolean b : a) {
+				writeRawData((byte) (b ? 1 : 0));
+			}
+		} else if(value instanceof byte[]) {
+			byte[] a = (byte[]) value;
+			writeRawArrayHeader(TYPE_BYTE_ARRAY, name, a.length);
+			writeRawData(a);
+		} else if(value instanceof char[]) {
+			char[] a = (char[]) value;
+			writeRawArrayHeader(TYPE_CHAR_ARRAY, name, a.length);
+			for(char c : a) {
+				writeRawData((short) c);
+			}
+		}
+	}
 	@Override
 	public void writeString(@NotNull String name, @NotNull String value) {
 		checkArray(false);
 		active.items.put(name, value);
 	}
 	private void writeString(@NotNull String string) {
-		byte[] s = string.getBytes();
+		byte[] s = string.getBytes(StandardCharsets.UTF_8);
 		writeRawData((short) s.length);
 		writeRawData(s);
 	}
@@ -356,10 +447,23 @@ public class BinaryDataStoreWriter extends DataStoreWriter {
 		}
 	}
 	
+	/**
+	 * Collects the encoded data, and allows the length of a complex object or array to be filled in once its content
+	 * has been written.
+	 */
+	private static class Buffer extends ByteArrayOutputStream {
+		void setInt(int position, int n) {
+			buf[position] = (byte) (n >>> 24);
+			buf[position + 1] = (byte) (n >>> 16);
+			buf[position + 2] = (byte) (n >>> 8);
+			buf[position + 3] = (byte) n;
+		}
+	}
+	
 	private class DataObject {
 		DataObject parent;
 		boolean isArray;
-		Map<String, Object> items = new HashMap<>();
+		Map<String, Object> items = new LinkedHashMap<>();
 		@NotNull DataObject newChild(@NotNull String name, boolean isArray) {
 			DataObject res = new DataObject();
 			res.parent = this;
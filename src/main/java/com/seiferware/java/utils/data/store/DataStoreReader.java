@@ -8,6 +8,8 @@ import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.LinkedTransferQueue;
@@ -68,6 +70,7 @@ import java.util.concurrent.LinkedTransferQueue;
  */
 public abstract class DataStoreReader {
 	private final Class<?>[] collectionClasses = {ArrayList.class, HashSet.class, LinkedList.class, LinkedBlockingQueue.class, LinkedBlockingDeque.class, LinkedTransferQueue.class};
+	private final Class<?>[] mapClasses = {HashMap.class, TreeMap.class, ConcurrentHashMap.class, ConcurrentSkipListMap.class};
 	/**
 	 * This method creates a lock on the instance which prevents traversal up the data hierarchy above the current
 	 * position. The hierarchy may be traversed downward as desired. Removing the lock via {@link
@@ -125,11 +128,19 @@ public abstract class DataStoreReader {
 	 * 		The object to populate using the active context.
 	 */
 	public final void defaultReadObject(@NotNull Object obj) {
+		defaultReadObject(obj, null);
+	}
+	private void defaultReadObject(@NotNull Object obj, @Nullable Projection projection) {
 		Class<?> objclass = obj.getClass();
 		for(Field field : ClassReflection.getAllFieldsWithAnnotation(objclass, Storable.class)) {
+			if(projection != null && !projection.includes(field.getName())) {
+				continue;
+			}
+			Projection sub = projection == null ? null : projection.get(field.getName());
 			try {
 				Storable st = field.getAnnotation(Storable.class);
 				Class<?> cls = field.getType();
+				Type generic = field.getGenericType();
 				Method mt = null;
 				String setter = st.setter();
 				if(Cachable.class.isAssignableFrom(cls) && setter.equals("")) {
@@ -145,6 +156,7 @@ public abstract class DataStoreReader {
 							if(method.getParameterTypes().length == 1) {
 								mt = method;
 								cls = method.getParameterTypes()[0];
+								generic = method.getGenericParameterTypes()[0];
 								break;
 							}
 						}
@@ -172,8 +184,21 @@ public abstract class DataStoreReader {
 				} else if(cls.equals(char.class) || cls.equals(Character.class)) {
 					result = readChar(field.getName());
 				} else if(Map.class.isAssignableFrom(cls)) {
-					@SuppressWarnings("unchecked") Map<Object, Object> map = (Map<Object, Object>) cls.newInstance();
-					if(tryEnterArray(field.getName())) {
+					Map<Object, Object> map = newMap(cls);
+					Class<?> keyType = ClassReflection.getTypeArgument(generic, 0);
+					Class<?> valueType = ClassReflection.getTypeArgument(generic, 1);
+					if(ValueArrays.isValueType(keyType) && ValueArrays.isValueType(valueType) && tryEnterComplex(field.getName())) {
+						Object keys = ValueArrays.read(this, "keys", keyType);
+						Object values = ValueArrays.read(this, "values", valueType);
+						exitComplex();
+						if(keys != null && values != null && Array.getLength(keys) == Array.getLength(values)) {
+							Object[] k = ValueArrays.box(keys);
+							Object[] v = ValueArrays.box(values);
+							for(int i = 0; i < k.length; i++) {
+								map.put(k[i], v[i]);
+							}
+						}
+					} else if(tryEnterArray(field.getName())) {
 						for(int i = 0; i < getArrayLength(); i++) {
 							enterArrayElement(i);
 							Object key = null;
@@ -183,7 +208,7 @@ public abstract class DataStoreReader {
 								exitComplex();
 							}
 							if(tryEnterComplex("value")) {
-								value = readObject();
+								value = readObject(sub);
 								exitComplex();
 							}
 							if(key != null && value != null) {
@@ -194,50 +219,44 @@ public abstract class DataStoreReader {
 						exitArray();
 					}
 					result = map;
-				} else if(cls.isArray() && !cls.getComponentType().isPrimitive() || Collection.class.isAssignableFrom(cls)) {
-					String[] strArray = readStringArray(field.getName(), null);
-					if(strArray != null) {
-						result = strArray;
-					} else if(tryEnterArray(field.getName())) {
-						int n = getArrayLength();
-						Object[] objs;
-						if(cls.isArray()) {
-							objs = (Object[]) Array.newInstance(cls.getComponentType(), n);
+				} else if(cls.isArray() || Collection.class.isAssignableFrom(cls)) {
+					Class<?> elementType = cls.isArray() ? cls.getComponentType() : ClassReflection.getTypeArgument(generic, 0);
+					Object values = ValueArrays.isValueType(elementType) ? ValueArrays.read(this, field.getName(), elementType) : null;
+					Object[] objs = null;
+					if(values != null) {
+						if(cls.isArray() && cls.getComponentType().isPrimitive()) {
+							result = values;
 						} else {
-							objs = new Object[n];
+							objs = ValueArrays.box(values);
 						}
-						for(int i = 0; i < n; i++) {
-							enterArrayElement(i);
-							objs[i] = readObject();
-							exitArrayElement();
+					} else if(!cls.isArray() || !cls.getComponentType().isPrimitive()) {
+						objs = readStringArray(field.getName(), null);
+						if(objs == null && tryEnterArray(field.getName())) {
+							objs = new Object[getArrayLength()];
+							for(int i = 0; i < objs.length; i++) {
+								enterArrayElement(i);
+								objs[i] = readObject(sub);
+								exitArrayElement();
+							}
+							exitArray();
 						}
-						exitArray();
+					}
+					if(objs != null) {
 						if(cls.isArray()) {
-							result = objs;
-						} else {
-							Collection<Object> col = null;
-							if(Modifier.isAbstract(cls.getModifiers()) || Modifier.isInterface(cls.getModifiers())) {
-								for(Class<?> collectionClasse : collectionClasses) {
-									if(cls.isAssignableFrom(collectionClasse)) {
-										@SuppressWarnings("unchecked") Collection<Object> coll = (Collection<Object>) collectionClasse.newInstance();
-										col = coll;
-										break;
-									}
-								}
-							} else {
-								@SuppressWarnings("unchecked") Collection<Object> coll2 = (Collection<Object>) cls.newInstance();
-								col = coll2;
-							}
-							if(col == null) {
-								throw new IncompatibleTypeException();
+							Object array = Array.newInstance(cls.getComponentType(), objs.length);
+							for(int i = 0; i < objs.length; i++) {
+								Array.set(array, i, objs[i]);
 							}
+							result = array;
+						} else {
+							Collection<Object> col = newCollection(cls);
 							col.addAll(Arrays.asList(objs));
 							result = col;
 						}
 					}
 				} else {
 					enterComplex(field.getName());
-					result = readObject();
+					result = readObject(sub);
 					exitComplex();
 				}
 				if(result != noResult) {
@@ -323,6 +342,33 @@ public abstract class DataStoreReader {
 	public abstract int getArrayLength();
 	protected abstract boolean isPathLocked(@NotNull ReaderBookmark to);
 	protected abstract void loadBookmark(@NotNull ReaderBookmark bookmark);
+	@NotNull
+	private Collection<Object> newCollection(@NotNull Class<?> cls) throws IncompatibleTypeException, InstantiationException, IllegalAccessException {
+		return newInstance(cls, collectionClasses);
+	}
+	@NotNull
+	private <T> T newInstance(@NotNull Class<?> cls, @NotNull Class<?>[] implementations) throws IncompatibleTypeException, InstantiationException, IllegalAccessException {
+		Class<?> impl = null;
+		if(Modifier.isAbstract(cls.getModifiers()) || Modifier.isInterface(cls.getModifiers())) {
+			for(Class<?> candidate : implementations) {
+				if(cls.isAssignableFrom(candidate)) {
+					impl = candidate;
+					break;
+				}
+			}
+			if(impl == null) {
+				throw new IncompatibleTypeException();
+			}
+		} else {
+			impl = cls;
+		}
+		@SuppressWarnings("unchecked") T res = (T) impl.newInstance();
+		return res;
+	}
+	@NotNull
+	private Map<Object, Object> newMap(@NotNull Class<?> cls) throws IncompatibleTypeException, InstantiationException, IllegalAccessException {
+		return newInstance(cls, mapClasses);
+	}
 	/**
 	 * Returns the boolean value associated with the provided name.
 	 *
@@ -354,6 +400,31 @@ public abstract class DataStoreReader {
 			return defaultvalue;
 		}
 	}
+	/**
+	 * Returns the boolean values associated with the provided name. By default, the values are read from a string array,
+	 * and implementations may override this to read a more compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to retrieve the values.
+	 *
+	 * @return The values associated with the provided name.
+	 * @throws EntryNotFoundException
+	 * 		If there is no entry in the current context matching the name.
+	 * @throws IncompatibleTypeException
+	 * 		If there is an entry matching the name, but it cannot be represented as a {@code boolean[]}.
+	 */
+	@NotNull
+	public boolean[] readBooleanArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		String[] strings = readStringArray(name);
+		boolean[] result = new boolean[strings.length];
+		for(int i = 0; i < strings.length; i++) {
+			if(!strings[i].equals("true") && !strings[i].equals("false")) {
+				throw new IncompatibleTypeException();
+			}
+			result[i] = strings[i].equals("true");
+		}
+		return result;
+	}
 	/**
 	 * Returns the byte value associated with the provided name.
 	 *
@@ -385,6 +456,32 @@ public abstract class DataStoreReader {
 			return defaultvalue;
 		}
 	}
+	/**
+	 * Returns the byte values associated with the provided name. By default, the values are read from a string array,
+	 * and implementations may override this to read a more compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to retrieve the values.
+	 *
+	 * @return The values associated with the provided name.
+	 * @throws EntryNotFoundException
+	 * 		If there is no entry in the current context matching the name.
+	 * @throws IncompatibleTypeException
+	 * 		If there is an entry matching the name, but it cannot be represented as a {@code byte[]}.
+	 */
+	@NotNull
+	public byte[] readByteArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		String[] strings = readStringArray(name);
+		byte[] result = new byte[strings.length];
+		try {
+			for(int i = 0; i < strings.length; i++) {
+				result[i] = Byte.parseByte(strings[i]);
+			}
+		} catch (NumberFormatException e) {
+			throw new IncompatibleTypeException();
+		}
+		return result;
+	}
 	/**
 	 * Returns the char value associated with the provided name.
 	 *
@@ -416,6 +513,31 @@ public abstract class DataStoreReader {
 			return defaultvalue;
 		}
 	}
+	/**
+	 * Returns the char values associated with the provided name. By default, the values are read from a string array,
+	 * and implementations may override this to read a more compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to retrieve the values.
+	 *
+	 * @return The values associated with the provided name.
+	 * @throws EntryNotFoundException
+	 * 		If there is no entry in the current context matching the name.
+	 * @throws IncompatibleTypeException
+	 * 		If there is an entry matching the name, but it cannot be represented as a {@code char[]}.
+	 */
+	@NotNull
+	public char[] readCharArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		String[] strings = readStringArray(name);
+		char[] result = new char[strings.length];
+		for(int i = 0; i < strings.length; i++) {
+			if(strings[i].length() != 1) {
+				throw new IncompatibleTypeException();
+			}
+			result[i] = strings[i].charAt(0);
+		}
+		return result;
+	}
 	/**
 	 * Returns the double-precision floating-point value associated with the provided name.
 	 *
@@ -448,6 +570,32 @@ public abstract class DataStoreReader {
 			return defaultvalue;
 		}
 	}
+	/**
+	 * Returns the double values associated with the provided name. By default, the values are read from a string array,
+	 * and implementations may override this to read a more compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to retrieve the values.
+	 *
+	 * @return The values associated with the provided name.
+	 * @throws EntryNotFoundException
+	 * 		If there is no entry in the current context matching the name.
+	 * @throws IncompatibleTypeException
+	 * 		If there is an entry matching the name, but it cannot be represented as a {@code double[]}.
+	 */
+	@NotNull
+	public double[] readDoubleArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		String[] strings = readStringArray(name);
+		double[] result = new double[strings.length];
+		try {
+			for(int i = 0; i < strings.length; i++) {
+				result[i] = Double.parseDouble(strings[i]);
+			}
+		} catch (NumberFormatException e) {
+			throw new IncompatibleTypeException();
+		}
+		return result;
+	}
 	/**
 	 * Returns the enumeration value associated with the provided name.
 	 *
@@ -519,6 +667,32 @@ public abstract class DataStoreReader {
 			return defaultvalue;
 		}
 	}
+	/**
+	 * Returns the float values associated with the provided name. By default, the values are read from a string array,
+	 * and implementations may override this to read a more compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to retrieve the values.
+	 *
+	 * @return The values associated with the provided name.
+	 * @throws EntryNotFoundException
+	 * 		If there is no entry in the current context matching the name.
+	 * @throws IncompatibleTypeException
+	 * 		If there is an entry matching the name, but it cannot be represented as a {@code float[]}.
+	 */
+	@NotNull
+	public float[] readFloatArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		String[] strings = readStringArray(name);
+		float[] result = new float[strings.length];
+		try {
+			for(int i = 0; i < strings.length; i++) {
+				result[i] = Float.parseFloat(strings[i]);
+			}
+		} catch (NumberFormatException e) {
+			throw new IncompatibleTypeException();
+		}
+		return result;
+	}
 	/**
 	 * Returns the integer value associated with the provided name.
 	 *
@@ -550,6 +724,32 @@ public abstract class DataStoreReader {
 			return defaultvalue;
 		}
 	}
+	/**
+	 * Returns the int values associated with the provided name. By default, the values are read from a string array,
+	 * and implementations may override this to read a more compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to retrieve the values.
+	 *
+	 * @return The values associated with the provided name.
+	 * @throws EntryNotFoundException
+	 * 		If there is no entry in the current context matching the name.
+	 * @throws IncompatibleTypeException
+	 * 		If there is an entry matching the name, but it cannot be represented as a {@code int[]}.
+	 */
+	@NotNull
+	public int[] readIntArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		String[] strings = readStringArray(name);
+		int[] result = new int[strings.length];
+		try {
+			for(int i = 0; i < strings.length; i++) {
+				result[i] = Integer.parseInt(strings[i]);
+			}
+		} catch (NumberFormatException e) {
+			throw new IncompatibleTypeException();
+		}
+		return result;
+	}
 	/**
 	 * Returns the long integer value associated with the provided name.
 	 *
@@ -582,6 +782,32 @@ public abstract class DataStoreReader {
 			return defaultvalue;
 		}
 	}
+	/**
+	 * Returns the long values associated with the provided name. By default, the values are read from a string array,
+	 * and implementations may override this to read a more compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to retrieve the values.
+	 *
+	 * @return The values associated with the provided name.
+	 * @throws EntryNotFoundException
+	 * 		If there is no entry in the current context matching the name.
+	 * @throws IncompatibleTypeException
+	 * 		If there is an entry matching the name, but it cannot be represented as a {@code long[]}.
+	 */
+	@NotNull
+	public long[] readLongArray(@NotNull String name) throws EntryNotFoundException, IncompatibleTypeException {
+		String[] strings = readStringArray(name);
+		long[] result = new long[strings.length];
+		try {
+			for(int i = 0; i < strings.length; i++) {
+				result[i] = Long.parseLong(strings[i]);
+			}
+		} catch (NumberFormatException e) {
+			throw new IncompatibleTypeException();
+		}
+		return result;
+	}
 	/**
 	 * Reads an object stored using {@code DataStoreWriter#writeObject(Object)}. The object <i>is</i> the active
 	 * context. If the object implements {@link CustomStoreType}, the {@link CustomStoreType#loadStoreData(DataStoreReader)}
@@ -594,6 +820,31 @@ public abstract class DataStoreReader {
 	 */
 	@Nullable
 	public final Object readObject() {
+		return readObject((Projection) null);
+	}
+	/**
+	 * Reads only some of the fields of an object stored using {@code DataStoreWriter#writeObject(Object)}. This works
+	 * like {@link #readObject()}, except that {@link Storable} fields which are not selected keep the value they were
+	 * given by the object's constructor. Their data is not decoded, and with a {@link BinaryDataStoreReader}, it is
+	 * skipped without being parsed at all.
+	 * <p>
+	 * Each entry of {@code fields} is the name of a field, or a path of field names separated by dots which selects a
+	 * field of a nested object. Selecting a field selects everything stored within it. A path passes through
+	 * collections, arrays and map values, so {@code "inventory.name"} selects the {@code name} of every item in the
+	 * {@code inventory} list. Objects which implement {@link CustomStoreType} are always read in full.
+	 *
+	 * @param fields
+	 * 		The names or paths of the fields to read.
+	 *
+	 * @return The stored object, or {@code null} if creating the object failed for any reason.
+	 * @see #readObject()
+	 */
+	@Nullable
+	public final Object readObject(@NotNull Set<String> fields) {
+		return readObject(Projection.of(fields));
+	}
+	@Nullable
+	private Object readObject(@Nullable Projection projection) {
 		String className;
 		Class<?> objclass;
 		Object obj;
@@ -612,7 +863,7 @@ public abstract class DataStoreReader {
 		} catch (InstantiationException | IllegalAccessException | EntryNotFoundException | IncompatibleTypeException | ClassNotFoundException e1) {
 			return null;
 		}
-		defaultReadObject(obj);
+		defaultReadObject(obj, projection);
 		return obj;
 	}
 	/**
@@ -767,6 +1018,40 @@ public abstract class DataStoreReader {
 			return null;
 		}
 	}
+	/**
+	 * The fields selected by {@link #readObject(Set)}, as a tree of field names. A name which maps to {@code null}
+	 * selects the whole field.
+	 */
+	private static final class Projection {
+		private final Map<String, Projection> children = new HashMap<>();
+		@NotNull
+		static Projection of(@NotNull Set<String> fields) {
+			Projection root = new Projection();
+			for(String path : fields) {
+				Projection node = root;
+				String[] names = path.split("\\.");
+				for(int i = 0; i < names.length; i++) {
+					if(node.children.containsKey(names[i]) && node.children.get(names[i]) == null) {
+						break;
+					}
+					if(i == names.length - 1) {
+						node.children.put(names[i], null);
+					} else {
+						node = node.children.computeIfAbsent(names[i], k -> new Projection());
+					}
+				}
+			}
+			return root;
+		}
+		@Nullable
+		Projection get(@NotNull String name) {
+			return children.get(name);
+		}
+		boolean includes(@NotNull String name) {
+			return children.containsKey(name);
+		}
+	}
+	
 	/**
 	 * This class represents a specific point in the data hierarchy for a specific {@link DataStoreReader} instance. It
 	 * is created using the {@link #createBookmark()} method, and used via the {@link
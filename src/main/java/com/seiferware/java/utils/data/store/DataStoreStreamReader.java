@@ -0,0 +1,48 @@
+package com.seiferware.java.utils.data.store;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A forward-only reader for data written by a {@link DataStoreWriter}. Unlike {@link DataStoreReader}, the data tree is
+ * never built in memory. Instead, the content is reported to a {@link DataStoreVisitor} as it is read from the
+ * underlying stream, so that the memory used does not depend on the size of the store. This makes it suitable for
+ * exporting, gathering statistics from, or migrating stores that are too large to load.
+ * <p>
+ * The caller drives the reading, either one step at a time with {@link #next(DataStoreVisitor)}, or all at once with
+ * {@link #accept(DataStoreVisitor)}.
+ *
+ * @see DataStoreVisitor
+ * @see BinaryDataStoreStreamReader
+ * @see XmlDataStoreStreamReader
+ */
+public abstract class DataStoreStreamReader implements Closeable {
+	/**
+	 * Reads the remaining content of the store, reporting it to {@code visitor}.
+	 *
+	 * @param visitor
+	 * 		The visitor to be notified of the content.
+	 *
+	 * @throws IOException
+	 * 		If the data could not be read or is malformed.
+	 */
+	public final void accept(@NotNull DataStoreVisitor visitor) throws IOException {
+		while(next(visitor)) {
+			// Each call reports the next piece of content.
+		}
+	}
+	/**
+	 * Reads the next piece of content from the store and reports it to {@code visitor}. A single call usually results
+	 * in exactly one callback, but some formats may need to report several at once.
+	 *
+	 * @param visitor
+	 * 		The visitor to be notified of the content.
+	 *
+	 * @return {@code true} if content was reported, {@code false} if the end of the store has been reached.
+	 * @throws IOException
+	 * 		If the data could not be read or is malformed.
+	 */
+	public abstract boolean next(@NotNull DataStoreVisitor visitor) throws IOException;
+}
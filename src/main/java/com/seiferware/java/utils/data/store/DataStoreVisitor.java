@@ -0,0 +1,219 @@
+package com.seiferware.java.utils.data.store;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives the content of a data store, in order, from a {@link DataStoreStreamReader}. Each complex object, array and
+ * array element is opened with a {@code start} callback and closed with {@link #end()}, and values are reported as
+ * they are encountered. The root complex object is neither started nor ended.
+ * <p>
+ * All methods do nothing by default, so implementations only need to override the callbacks they are interested in.
+ * Formats which do not record the type of a value report it using the closest available callback. For example, the
+ * attributes of an XML store are always reported through {@link #stringValue(String, String)}.
+ *
+ * @see DataStoreStreamReader
+ */
+public interface DataStoreVisitor {
+	/**
+	 * Called for a boolean array value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The values.
+	 */
+	default void booleanArrayValue(@NotNull String name, @NotNull boolean[] value) {
+	}
+	/**
+	 * Called for a boolean value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The value.
+	 */
+	default void booleanValue(@NotNull String name, boolean value) {
+	}
+	/**
+	 * Called for a byte array value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The values.
+	 */
+	default void byteArrayValue(@NotNull String name, @NotNull byte[] value) {
+	}
+	/**
+	 * Called for a byte value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The value.
+	 */
+	default void byteValue(@NotNull String name, byte value) {
+	}
+	/**
+	 * Called for a char array value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The values.
+	 */
+	default void charArrayValue(@NotNull String name, @NotNull char[] value) {
+	}
+	/**
+	 * Called for a char value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The value.
+	 */
+	default void charValue(@NotNull String name, char value) {
+	}
+	/**
+	 * Called for a double-precision floating-point array value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The values.
+	 */
+	default void doubleArrayValue(@NotNull String name, @NotNull double[] value) {
+	}
+	/**
+	 * Called for a double-precision floating-point value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The value.
+	 */
+	default void doubleValue(@NotNull String name, double value) {
+	}
+	/**
+	 * Called when the innermost open complex object, array or array element is closed.
+	 */
+	default void end() {
+	}
+	/**
+	 * Called for an {@link java.util.EnumSet} value in the current complex object or array element. The value is
+	 * reported as the space-separated names of the constants in the set, since the enum type is not stored.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The names of the constants in the set.
+	 */
+	default void enumValue(@NotNull String name, @NotNull String value) {
+	}
+	/**
+	 * Called for a floating-point array value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The values.
+	 */
+	default void floatArrayValue(@NotNull String name, @NotNull float[] value) {
+	}
+	/**
+	 * Called for a floating-point value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The value.
+	 */
+	default void floatValue(@NotNull String name, float value) {
+	}
+	/**
+	 * Called for an integer array value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The values.
+	 */
+	default void intArrayValue(@NotNull String name, @NotNull int[] value) {
+	}
+	/**
+	 * Called for an integer value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The value.
+	 */
+	default void intValue(@NotNull String name, int value) {
+	}
+	/**
+	 * Called for a long integer array value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The values.
+	 */
+	default void longArrayValue(@NotNull String name, @NotNull long[] value) {
+	}
+	/**
+	 * Called for a long integer value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The value.
+	 */
+	default void longValue(@NotNull String name, long value) {
+	}
+	/**
+	 * Called when an array is opened. Its elements follow, each opened with {@link #startArrayElement(int)}, and the
+	 * array is closed with {@link #end()}.
+	 *
+	 * @param name
+	 * 		The name of the array.
+	 */
+	default void startArray(@NotNull String name) {
+	}
+	/**
+	 * Called when an element of the current array is opened. Its values follow, and the element is closed with {@link
+	 * #end()}.
+	 *
+	 * @param index
+	 * 		The index of the element within the array.
+	 */
+	default void startArrayElement(int index) {
+	}
+	/**
+	 * Called when a complex object is opened. Its values follow, and the object is closed with {@link #end()}.
+	 *
+	 * @param name
+	 * 		The name of the complex object.
+	 */
+	default void startComplex(@NotNull String name) {
+	}
+	/**
+	 * Called for a string array value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The value.
+	 */
+	default void stringArrayValue(@NotNull String name, @NotNull String[] value) {
+	}
+	/**
+	 * Called for a string value in the current complex object or array element.
+	 *
+	 * @param name
+	 * 		The name of the value.
+	 * @param value
+	 * 		The value.
+	 */
+	default void stringValue(@NotNull String name, @NotNull String value) {
+	}
+}
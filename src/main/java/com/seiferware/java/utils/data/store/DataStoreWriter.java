@@ -7,6 +7,7 @@ import org.jetbrains.annotations.NotNull;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -175,6 +176,7 @@ public abstract class DataStoreWriter {
 				Storable st = field.getAnnotation(Storable.class);
 				Method mt = null;
 				Class<?> cls = field.getType();
+				Type generic = field.getGenericType();
 				Object result = null;
 				String getter = st.getter();
 				if(Cachable.class.isAssignableFrom(cls) && getter.equals("")) {
@@ -194,6 +196,7 @@ public abstract class DataStoreWriter {
 					try {
 						mt = objcls.getMethod(getter);
 						cls = mt.getReturnType();
+						generic = mt.getGenericReturnType();
 						result = mt.invoke(obj);
 					} catch (NoSuchMethodException | SecurityException | InvocationTargetException ignored) {
 					}
@@ -223,17 +226,38 @@ public abstract class DataStoreWriter {
 				} else if(countsAsStringArray(result)) {
 					writeStringArray(field.getName(), getAsStringArray(result));
 				} else if(Map.class.isAssignableFrom(cls)) {
-					createArray(field.getName());
-					((Map<?, ?>) result).entrySet().stream().forEach(entry -> {
-						createComplex("key");
-						writeObject(entry.getKey());
-						closeComplex();
-						createComplex("value");
-						writeObject(entry.getValue());
+					Map<?, ?> map = (Map<?, ?>) result;
+					Class<?> keyType = ClassReflection.getTypeArgument(generic, 0);
+					Class<?> valueType = ClassReflection.getTypeArgument(generic, 1);
+					Object[] keys = new Object[map.size()];
+					Object[] values = new Object[map.size()];
+					int n = 0;
+					for(Map.Entry<?, ?> entry : map.entrySet()) {
+						keys[n] = entry.getKey();
+						values[n++] = entry.getValue();
+					}
+					if(ValueArrays.canWrite(keyType, keys) && ValueArrays.canWrite(valueType, values)) {
+						createComplex(field.getName());
+						ValueArrays.write(this, "keys", keyType, keys);
+						ValueArrays.write(this, "values", valueType, values);
 						closeComplex();
-					});
-					closeArray();
-				} else if(cls.isArray() && !cls.getComponentType().isPrimitive() || Collection.class.isAssignableFrom(cls)) {
+					} else {
+						createArray(field.getName());
+						for(int i = 0; i < n; i++) {
+							createArrayElement();
+							createComplex("key");
+							writeObject(keys[i]);
+							closeComplex();
+							createComplex("value");
+							writeObject(values[i]);
+							closeComplex();
+							closeArrayElement();
+						}
+						closeArray();
+					}
+				} else if((cls.isArray() || Collection.class.isAssignableFrom(cls)) && ValueArrays.tryWrite(this, field.getName(), cls.isArray() ? cls.getComponentType() : ClassReflection.getTypeArgument(generic, 0), result)) {
+					// Arrays and collections of primitives and strings are written in bulk.
+				} else if(cls.isArray() || Collection.class.isAssignableFrom(cls)) {
 					createArray(field.getName());
 					if(cls.isArray()) {
 						for(Object q : (Object[]) result) {
@@ -324,6 +348,23 @@ public abstract class DataStoreWriter {
 	 * 		The value associated with the name.
 	 */
 	public abstract void writeBoolean(@NotNull String name, boolean value);
+	/**
+	 * Stores the provided boolean values to the current complex object or array element context, under the provided
+	 * name. By default, the values are stored as a string array, and implementations may override this with a more
+	 * compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to access the values.
+	 * @param value
+	 * 		The values associated with the name.
+	 */
+	public void writeBooleanArray(@NotNull String name, @NotNull boolean[] value) {
+		String[] strings = new String[value.length];
+		for(int i = 0; i < value.length; i++) {
+			strings[i] = String.valueOf(value[i]);
+		}
+		writeStringArray(name, strings);
+	}
 	/**
 	 * Stores the provided byte value to the current complex object or array element context, under the provided name.
 	 *
@@ -333,6 +374,23 @@ public abstract class DataStoreWriter {
 	 * 		The value associated with the name.
 	 */
 	public abstract void writeByte(@NotNull String name, byte value);
+	/**
+	 * Stores the provided byte values to the current complex object or array element context, under the provided
+	 * name. By default, the values are stored as a string array, and implementations may override this with a more
+	 * compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to access the values.
+	 * @param value
+	 * 		The values associated with the name.
+	 */
+	public void writeByteArray(@NotNull String name, @NotNull byte[] value) {
+		String[] strings = new String[value.length];
+		for(int i = 0; i < value.length; i++) {
+			strings[i] = String.valueOf(value[i]);
+		}
+		writeStringArray(name, strings);
+	}
 	/**
 	 * Stores the provided char value to the current complex object or array element context, under the provided name.
 	 *
@@ -342,6 +400,23 @@ public abstract class DataStoreWriter {
 	 * 		The value associated with the name.
 	 */
 	public abstract void writeChar(@NotNull String name, char value);
+	/**
+	 * Stores the provided char values to the current complex object or array element context, under the provided
+	 * name. By default, the values are stored as a string array, and implementations may override this with a more
+	 * compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to access the values.
+	 * @param value
+	 * 		The values associated with the name.
+	 */
+	public void writeCharArray(@NotNull String name, @NotNull char[] value) {
+		String[] strings = new String[value.length];
+		for(int i = 0; i < value.length; i++) {
+			strings[i] = String.valueOf(value[i]);
+		}
+		writeStringArray(name, strings);
+	}
 	/**
 	 * Stores the provided double-precision floating-point value to the current complex object or array element
 	 * context,
@@ -353,6 +428,23 @@ public abstract class DataStoreWriter {
 	 * 		The value associated with the name.
 	 */
 	public abstract void writeDouble(@NotNull String name, double value);
+	/**
+	 * Stores the provided double values to the current complex object or array element context, under the provided
+	 * name. By default, the values are stored as a string array, and implementations may override this with a more
+	 * compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to access the values.
+	 * @param value
+	 * 		The values associated with the name.
+	 */
+	public void writeDoubleArray(@NotNull String name, @NotNull double[] value) {
+		String[] strings = new String[value.length];
+		for(int i = 0; i < value.length; i++) {
+			strings[i] = String.valueOf(value[i]);
+		}
+		writeStringArray(name, strings);
+	}
 	/**
 	 * Stores the provided {@link EnumSet} value to the current complex object or array element context, under the
 	 * provided name.
@@ -375,6 +467,23 @@ public abstract class DataStoreWriter {
 	 * 		The value associated with the name.
 	 */
 	public abstract void writeFloat(@NotNull String name, float value);
+	/**
+	 * Stores the provided float values to the current complex object or array element context, under the provided
+	 * name. By default, the values are stored as a string array, and implementations may override this with a more
+	 * compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to access the values.
+	 * @param value
+	 * 		The values associated with the name.
+	 */
+	public void writeFloatArray(@NotNull String name, @NotNull float[] value) {
+		String[] strings = new String[value.length];
+		for(int i = 0; i < value.length; i++) {
+			strings[i] = String.valueOf(value[i]);
+		}
+		writeStringArray(name, strings);
+	}
 	/**
 	 * Stores the provided integer value to the current complex object or array element context, under the provided
 	 * name.
@@ -385,6 +494,23 @@ public abstract class DataStoreWriter {
 	 * 		The value associated with the name.
 	 */
 	public abstract void writeInt(@NotNull String name, int value);
+	/**
+	 * Stores the provided int values to the current complex object or array element context, under the provided
+	 * name. By default, the values are stored as a string array, and implementations may override this with a more
+	 * compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to access the values.
+	 * @param value
+	 * 		The values associated with the name.
+	 */
+	public void writeIntArray(@NotNull String name, @NotNull int[] value) {
+		String[] strings = new String[value.length];
+		for(int i = 0; i < value.length; i++) {
+			strings[i] = String.valueOf(value[i]);
+		}
+		writeStringArray(name, strings);
+	}
 	/**
 	 * Stores the provided long integer value to the current complex object or array element context, under the
 	 * provided
@@ -396,6 +522,23 @@ public abstract class DataStoreWriter {
 	 * 		The value associated with the name.
 	 */
 	public abstract void writeLong(@NotNull String name, long value);
+	/**
+	 * Stores the provided long values to the current complex object or array element context, under the provided
+	 * name. By default, the values are stored as a string array, and implementations may override this with a more
+	 * compact encoding.
+	 *
+	 * @param name
+	 * 		The name used to access the values.
+	 * @param value
+	 * 		The values associated with the name.
+	 */
+	public void writeLongArray(@NotNull String name, @NotNull long[] value) {
+		String[] strings = new String[value.length];
+		for(int i = 0; i < value.length; i++) {
+			strings[i] = String.valueOf(value[i]);
+		}
+		writeStringArray(name, strings);
+	}
 	/**
 	 * Stores the data of an object recursively, using the {@link Storable} annotation. In many cases, simply
 	 * annotating
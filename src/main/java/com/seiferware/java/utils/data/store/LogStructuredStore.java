@@ -0,0 +1,656 @@
+package com.seiferware.java.utils.data.store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * A persistent map from string keys to documents written by {@link BinaryDataStoreWriter}, designed for high update
+ * rates. It is organized as a log-structured merge tree, stored in a directory of its own.
+ * <p>
+ * Every change is appended to a write-ahead log and applied to an in-memory table of encoded documents. When that table
+ * grows beyond its size limit, it is written out as a sorted, immutable segment file with a sparse index, and the log is
+ * cleared. Lookups check the in-memory table and then each segment from newest to oldest; each segment lookup is a
+ * binary search of its sparse index followed by a short scan. When enough segments have accumulated, they are merged
+ * into one by a background thread, which also drops removed and replaced entries.
+ * <p>
+ * The list of live segments is kept in a manifest file which is replaced atomically, so the store always reopens in a
+ * consistent state. Segments are memory-mapped while the store is open. A segment replaced by compaction is deleted
+ * once no lookup or scan is still reading it.
+ *
+ * @see BinaryDataStoreWriter
+ * @see BinaryDataStoreReader
+ * @see RecordFile
+ */
+public class LogStructuredStore implements Closeable {
+	private static final int MAGIC = 0x53574A4C;
+	private static final int INDEX_INTERVAL = 16;
+	private static final String MANIFEST = "MANIFEST";
+	private static final String LOG = "wal.log";
+	private static final byte[] TOMBSTONE = new byte[0];
+	protected final File directory;
+	private final long memtableLimit;
+	private final int compactionThreshold;
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "LogStructuredStore compaction");
+		t.setDaemon(true);
+		return t;
+	});
+	private final AtomicBoolean compacting = new AtomicBoolean();
+	private volatile ConcurrentNavigableMap<String, byte[]> memtable = new ConcurrentSkipListMap<>();
+	private volatile List<Segment> segments = Collections.emptyList();
+	private long memtableBytes;
+	private long nextSegment;
+	private DataOutputStream log;
+	/**
+	 * Opens a store with a 4 MB in-memory table, which merges segments once there are four of them.
+	 *
+	 * @param directory
+	 * 		The directory in which the store's files are kept. It is created if it does not exist.
+	 *
+	 * @throws IOException
+	 * 		If the store cannot be opened.
+	 */
+	public LogStructuredStore(@NotNull File directory) throws IOException {
+		this(directory, 4 << 20, 4);
+	}
+	/**
+	 * Opens a store. Any changes which were logged but not yet written to a segment are restored before the
+	 * constructor exits.
+	 *
+	 * @param directory
+	 * 		The directory in which the store's files are kept. It is created if it does not exist.
+	 * @param memtableLimit
+	 * 		The approximate number of bytes of encoded documents to keep in memory before writing a segment.
+	 * @param compactionThreshold
+	 * 		The number of segments at which they are merged in the background.
+	 *
+	 * @throws IOException
+	 * 		If the store cannot be opened.
+	 */
+	public LogStructuredStore(@NotNull File directory, long memtableLimit, int compactionThreshold) throws IOException {
+		this.directory = directory;
+		this.memtableLimit = memtableLimit;
+		this.compactionThreshold = Math.max(2, compactionThreshold);
+		if(!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create directory " + directory);
+		}
+		List<Segment> loaded = new ArrayList<>();
+		Set<String> live = new HashSet<>();
+		File manifest = new File(directory, MANIFEST);
+		if(manifest.exists()) {
+			for(String name : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+				if(!name.isEmpty()) {
+					loaded.add(new Segment(new File(directory, name)));
+					live.add(name);
+				}
+			}
+		}
+		File[] files = directory.listFiles();
+		if(files != null) {
+			for(File f : files) {
+				String name = f.getName();
+				if(name.startsWith("segment-")) {
+					nextSegment = Math.max(nextSegment, Long.parseLong(name.substring(8, name.indexOf('.'))) + 1);
+					if(!live.contains(name)) {
+						// Left over from an interrupted flush or compaction.
+						Files.deleteIfExists(f.toPath());
+					}
+				}
+			}
+		}
+		segments = Collections.unmodifiableList(loaded);
+		replayLog();
+		log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(directory, LOG), true)));
+	}
+	/**
+	 * Closes the log and stops background compaction without writing the in-memory table to a segment, leaving the
+	 * directory as it would be if the process had stopped. Used to test recovery from the log.
+	 */
+	void abandon() throws IOException {
+		synchronized(this) {
+			if(log == null) {
+				return;
+			}
+			log.close();
+			log = null;
+		}
+		compactor.shutdown();
+		try {
+			compactor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	private void append(@NotNull String key, @NotNull byte[] value) throws IOException {
+		if(log == null) {
+			throw new IOException("The store has been closed.");
+		}
+		writeEntry(log, key, value);
+		log.flush();
+		byte[] old = memtable.put(key, value);
+		memtableBytes += value.length + key.length() * 2 - (old == null ? 0 : old.length + key.length() * 2);
+		if(memtableBytes >= memtableLimit) {
+			flush();
+		}
+	}
+	/**
+	 * Writes all pending changes to a segment, waits for any compaction in progress, and closes the store.
+	 *
+	 * @throws IOException
+	 * 		If an I/O error occurs.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized(this) {
+			if(log == null) {
+				return;
+			}
+			flush();
+			log.close();
+			log = null;
+		}
+		compactor.shutdown();
+		try {
+			compactor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	/**
+	 * Merges all current segments into one, on the calling thread. This is normally done in the background once the
+	 * number of segments reaches the compaction threshold.
+	 *
+	 * @throws IOException
+	 * 		If an I/O error occurs. The existing segments are left intact in that case.
+	 */
+	public void compact() throws IOException {
+		if(!compacting.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			List<Segment> inputs = segments;
+			if(inputs.size() < 2) {
+				return;
+			}
+			File out;
+			synchronized(this) {
+				out = new File(directory, "segment-" + nextSegment++ + ".dat");
+			}
+			writeSegment(out, new MergeCursor(inputs, null, null), true);
+			Segment merged = new Segment(out);
+			synchronized(this) {
+				List<Segment> next = new ArrayList<>(segments);
+				next.removeAll(inputs);
+				next.add(merged);
+				writeManifest(next);
+				segments = Collections.unmodifiableList(next);
+			}
+			for(Segment s : inputs) {
+				s.release();
+			}
+		} finally {
+			compacting.set(false);
+		}
+	}
+	/**
+	 * Whether a document is stored under the provided key.
+	 *
+	 * @param key
+	 * 		The key of the document.
+	 *
+	 * @return {@code true} if the key is present, {@code false} otherwise.
+	 */
+	public boolean contains(@NotNull String key) {
+		return find(key) != null;
+	}
+	@Nullable
+	private byte[] find(@NotNull String key) {
+		byte[] value = memtable.get(key);
+		if(value == null) {
+			List<Segment> list = retainSegments();
+			try {
+				for(Segment s : list) {
+					value = s.get(key);
+					if(value != null) {
+						break;
+					}
+				}
+			} finally {
+				release(list);
+			}
+		}
+		return value == TOMBSTONE ? null : value;
+	}
+	/**
+	 * Writes the contents of the in-memory table to a new segment and clears the write-ahead log. This happens
+	 * automatically when the table reaches its size limit.
+	 *
+	 * @throws IOException
+	 * 		If an I/O error occurs.
+	 */
+	public synchronized void flush() throws IOException {
+		if(memtable.isEmpty()) {
+			return;
+		}
+		File out = new File(directory, "segment-" + nextSegment++ + ".dat");
+		writeSegment(out, new MergeCursor(Collections.emptyList(), memtable, null), false);
+		List<Segment> next = new ArrayList<>();
+		next.add(new Segment(out));
+		next.addAll(segments);
+		writeManifest(next);
+		segments = Collections.unmodifiableList(next);
+		memtable = new ConcurrentSkipListMap<>();
+		memtableBytes = 0;
+		if(log != null) {
+			log.close();
+		}
+		log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(directory, LOG), false)));
+		if(next.size() >= compactionThreshold && !compacting.get()) {
+			compactor.execute(() -> {
+				try {
+					compact();
+				} catch (IOException ignored) {
+					// The segments are left as they were, and merging is attempted again after the next flush.
+				}
+			});
+		}
+	}
+	/**
+	 * Stores a document under the provided key, replacing any existing document. The writer's data is serialized
+	 * immediately, so the writer may be reused afterwards.
+	 *
+	 * @param key
+	 * 		The key of the document.
+	 * @param value
+	 * 		The writer containing the document's data.
+	 *
+	 * @throws IOException
+	 * 		If the change could not be logged.
+	 */
+	public void put(@NotNull String key, @NotNull BinaryDataStoreWriter value) throws IOException {
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		value.save(data);
+		synchronized(this) {
+			append(key, data.toByteArray());
+		}
+	}
+	/**
+	 * Reads the document stored under the provided key.
+	 *
+	 * @param key
+	 * 		The key of the document.
+	 *
+	 * @return A reader containing the document's data.
+	 * @throws EntryNotFoundException
+	 * 		If there is no document stored under the key.
+	 */
+	@NotNull
+	public DataStoreReader read(@NotNull String key) throws EntryNotFoundException {
+		byte[] value = find(key);
+		if(value == null) {
+			throw new EntryNotFoundException(key);
+		}
+		return new BinaryDataStoreReader(value);
+	}
+	/**
+	 * Removes the document stored under the provided key, if there is one.
+	 *
+	 * @param key
+	 * 		The key of the document.
+	 *
+	 * @throws IOException
+	 * 		If the change could not be logged.
+	 */
+	public synchronized void remove(@NotNull String key) throws IOException {
+		append(key, TOMBSTONE);
+	}
+	private static void release(@NotNull List<Segment> list) {
+		for(Segment s : list) {
+			s.release();
+		}
+	}
+	private void replayLog() throws IOException {
+		File file = new File(directory, LOG);
+		if(!file.exists()) {
+			return;
+		}
+		long size = file.length();
+		long valid = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			for(; ; ) {
+				String key;
+				byte[] value;
+				try {
+					byte[] k = new byte[in.readUnsignedShort()];
+					in.readFully(k);
+					key = new String(k, StandardCharsets.UTF_8);
+					int len = in.readInt();
+					if(len > size - valid - 6 - k.length) {
+						break;
+					}
+					value = len < 0 ? TOMBSTONE : new byte[len];
+					in.readFully(value);
+					valid += 6 + k.length + value.length;
+				} catch (EOFException e) {
+					break;
+				}
+				byte[] old = memtable.put(key, value);
+				memtableBytes += value.length + key.length() * 2 - (old == null ? 0 : old.length + key.length() * 2);
+			}
+		}
+		if(valid < size) {
+			// The last change was only partially written. Cut it off so that new changes follow the last complete one.
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+				channel.truncate(valid);
+			}
+		}
+	}
+	/**
+	 * Visits the documents whose keys are within a range, in key order.
+	 *
+	 * @param from
+	 * 		The lowest key to visit, inclusive, or {@code null} to start at the first key.
+	 * @param to
+	 * 		The highest key to visit, exclusive, or {@code null} to continue to the last key.
+	 * @param visitor
+	 * 		Called with the key and a reader for each document in the range.
+	 */
+	public void scan(@Nullable String from, @Nullable String to, @NotNull BiConsumer<String, DataStoreReader> visitor) {
+		ConcurrentNavigableMap<String, byte[]> mem = memtable;
+		if(from != null && to != null) {
+			mem = mem.subMap(from, true, to, false);
+		} else if(from != null) {
+			mem = mem.tailMap(from, true);
+		} else if(to != null) {
+			mem = mem.headMap(to, false);
+		}
+		List<Segment> list = retainSegments();
+		try {
+			MergeCursor cursor = new MergeCursor(list, mem, from);
+			while(cursor.next()) {
+				if(to != null && cursor.key.compareTo(to) >= 0) {
+					break;
+				}
+				if(cursor.value != TOMBSTONE) {
+					visitor.accept(cursor.key, new BinaryDataStoreReader(cursor.value));
+				}
+			}
+		} finally {
+			release(list);
+		}
+	}
+	/**
+	 * Takes a reference to each current segment, so that none of them is deleted while they are read. The list is read
+	 * again if compaction replaced one of them in the meantime.
+	 */
+	@NotNull
+	private List<Segment> retainSegments() {
+		while(true) {
+			List<Segment> list = segments;
+			int n = 0;
+			while(n < list.size() && list.get(n).retain()) {
+				n++;
+			}
+			if(n == list.size()) {
+				return list;
+			}
+			release(list.subList(0, n));
+		}
+	}
+	private static void writeEntry(@NotNull DataOutputStream out, @NotNull String key, @NotNull byte[] value) throws IOException {
+		byte[] k = key.getBytes(StandardCharsets.UTF_8);
+		out.writeShort(k.length);
+		out.write(k);
+		out.writeInt(value == TOMBSTONE ? -1 : value.length);
+		out.write(value);
+	}
+	private void writeManifest(@NotNull List<Segment> list) throws IOException {
+		File temp = new File(directory, MANIFEST + ".tmp");
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+			for(Segment s : list) {
+				out.write(s.file.getName());
+				out.write('\n');
+			}
+		}
+		Files.move(temp.toPath(), new File(directory, MANIFEST).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	private static void writeSegment(@NotNull File file, @NotNull MergeCursor cursor, boolean dropTombstones) throws IOException {
+		ByteArrayOutputStream indexData = new ByteArrayOutputStream();
+		DataOutputStream index = new DataOutputStream(indexData);
+		int count = 0;
+		int indexed = 0;
+		try (FileOutputStream fos = new FileOutputStream(file); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+			while(cursor.next()) {
+				if(dropTombstones && cursor.value == TOMBSTONE) {
+					continue;
+				}
+				if(count % INDEX_INTERVAL == 0) {
+					byte[] k = cursor.key.getBytes(StandardCharsets.UTF_8);
+					index.writeShort(k.length);
+					index.write(k);
+					index.writeInt(out.size());
+					indexed++;
+				}
+				writeEntry(out, cursor.key, cursor.value);
+				count++;
+			}
+			int indexOffset = out.size();
+			out.writeInt(indexed);
+			indexData.writeTo(out);
+			out.writeInt(indexOffset);
+			out.writeInt(count);
+			out.writeInt(MAGIC);
+			out.flush();
+			fos.getFD().sync();
+		}
+	}
+
+	/**
+	 * Walks the entries of several sorted sources in key order. When a key appears in more than one source, only the
+	 * entry from the newest source is returned. The in-memory table is newer than any segment, and segments are
+	 * ordered from newest to oldest.
+	 */
+	private static class MergeCursor {
+		private final PriorityQueue<Source> queue = new PriorityQueue<>((a, b) -> {
+			int c = a.key.compareTo(b.key);
+			return c != 0 ? c : Integer.compare(a.rank, b.rank);
+		});
+		String key;
+		byte[] value;
+		MergeCursor(@NotNull List<Segment> segments, @Nullable NavigableMap<String, byte[]> memtable, @Nullable String from) {
+			int rank = 0;
+			if(memtable != null) {
+				add(new MapSource(memtable, rank++));
+			}
+			for(Segment s : segments) {
+				add(s.iterator(from, rank++));
+			}
+		}
+		private void add(@NotNull Source source) {
+			if(source.advance()) {
+				queue.add(source);
+			}
+		}
+		boolean next() {
+			Source top = queue.poll();
+			if(top == null) {
+				return false;
+			}
+			key = top.key;
+			value = top.value;
+			add(top);
+			while(!queue.isEmpty() && queue.peek().key.equals(key)) {
+				add(queue.poll());
+			}
+			return true;
+		}
+	}
+
+	private abstract static class Source {
+		final int rank;
+		String key;
+		byte[] value;
+		Source(int rank) {
+			this.rank = rank;
+		}
+		abstract boolean advance();
+	}
+
+	private static class MapSource extends Source {
+		private final Iterator<Map.Entry<String, byte[]>> it;
+		MapSource(@NotNull NavigableMap<String, byte[]> map, int rank) {
+			super(rank);
+			it = map.entrySet().iterator();
+		}
+		@Override
+		boolean advance() {
+			if(!it.hasNext()) {
+				return false;
+			}
+			Map.Entry<String, byte[]> e = it.next();
+			key = e.getKey();
+			value = e.getValue();
+			return true;
+		}
+	}
+
+	/**
+	 * An immutable, sorted segment file. The whole file is memory-mapped, and every {@value #INDEX_INTERVAL}th key is
+	 * kept in memory along with its position.
+	 * <p>
+	 * The store holds one reference to each live segment, and every reader holds another while it reads. The store
+	 * gives up its reference when the segment is merged away, and the file is deleted when the last reference is
+	 * released.
+	 */
+	private static class Segment {
+		final File file;
+		final ByteBuffer data;
+		final String[] keys;
+		final int[] offsets;
+		final int end;
+		private final AtomicInteger refs = new AtomicInteger(1);
+		Segment(@NotNull File file) throws IOException {
+			this.file = file;
+			try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+				data = map;
+			}
+			int size = data.capacity();
+			if(size < 12 || data.getInt(size - 4) != MAGIC) {
+				throw new IOException("Not a valid segment file: " + file);
+			}
+			end = data.getInt(size - 12);
+			ByteBuffer in = data.duplicate();
+			in.position(end);
+			keys = new String[in.getInt()];
+			offsets = new int[keys.length];
+			for(int i = 0; i < keys.length; i++) {
+				keys[i] = readKey(in);
+				offsets[i] = in.getInt();
+			}
+		}
+		@Nullable
+		byte[] get(@NotNull String key) {
+			int i = Arrays.binarySearch(keys, key);
+			if(i < 0) {
+				i = -i - 2;
+				if(i < 0) {
+					return null;
+				}
+			}
+			ByteBuffer in = data.duplicate();
+			in.position(offsets[i]);
+			for(int n = 0; n < INDEX_INTERVAL && in.position() < end; n++) {
+				int c = readKey(in).compareTo(key);
+				if(c > 0) {
+					return null;
+				}
+				byte[] value = readValue(in);
+				if(c == 0) {
+					return value;
+				}
+			}
+			return null;
+		}
+		@NotNull
+		Source iterator(@Nullable String from, int rank) {
+			ByteBuffer in = data.duplicate();
+			if(from != null && keys.length > 0) {
+				int i = Arrays.binarySearch(keys, from);
+				if(i < 0) {
+					i = Math.max(0, -i - 2);
+				}
+				in.position(offsets[i]);
+			} else {
+				in.position(0);
+			}
+			return new Source(rank) {
+				@Override
+				boolean advance() {
+					while(in.position() < end) {
+						key = readKey(in);
+						value = readValue(in);
+						if(from == null || key.compareTo(from) >= 0) {
+							return true;
+						}
+					}
+					return false;
+				}
+			};
+		}
+		@NotNull
+		private static String readKey(@NotNull ByteBuffer in) {
+			byte[] k = new byte[in.getShort() & 0xFFFF];
+			in.get(k);
+			return new String(k, StandardCharsets.UTF_8);
+		}
+		@NotNull
+		private static byte[] readValue(@NotNull ByteBuffer in) {
+			int len = in.getInt();
+			if(len < 0) {
+				return TOMBSTONE;
+			}
+			byte[] v = new byte[len];
+			in.get(v);
+			return v;
+		}
+		void release() {
+			if(refs.decrementAndGet() == 0) {
+				try {
+					Files.deleteIfExists(file.toPath());
+				} catch (IOException ignored) {
+					// The file is not in the manifest, so it is deleted the next time the store is opened.
+				}
+			}
+		}
+		/**
+		 * Takes a reference to the segment, unless it has already been released for good.
+		 */
+		boolean retain() {
+			for(int n = refs.get(); n > 0; n = refs.get()) {
+				if(refs.compareAndSet(n, n + 1)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,422 @@
+package com.seiferware.java.utils.data.store;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Stores many independent documents written by {@link BinaryDataStoreWriter} in a single file, each identified by a
+ * string id. Any record can be read back as a {@link DataStoreReader} without reading the rest of the file.
+ * <p>
+ * Records are appended to the end of the file, followed by an index that maps each id to the position of its record.
+ * The index is kept in memory while the file is open, so looking up a record takes constant time. Replacing or removing
+ * a record leaves the old data in place, where it takes up space until {@link #compact()} is called. {@link
+ * #getWastedBytes()} can be used to decide when that is worthwhile.
+ * <p>
+ * Every commit writes the complete index again, so a single {@link #write(String, BinaryDataStoreWriter)} or {@link
+ * #remove(String)} costs time and file space in proportion to the number of records in the file, not just the size of
+ * the record. When many records change together, write them through a {@link Batch}, which writes the index only
+ * once.
+ * <p>
+ * An append never overwrites the previous index. If it is interrupted, for example by a crash, the incomplete data at
+ * the end of the file is discarded the next time the file is opened, and the file keeps its prior contents.
+ *
+ * @see BinaryDataStoreWriter
+ * @see BinaryDataStoreReader
+ */
+public class RecordFile implements Closeable {
+	private static final int MAGIC = 0x53574A52;
+	private static final int HEADER_SIZE = 4;
+	private static final int TRAILER_SIZE = 12;
+	private static final int RECOVERY_BLOCK = 8192;
+	protected final File file;
+	private final Map<String, Location> index = new HashMap<>();
+	private FileChannel channel;
+	private long end;
+	private long indexBytes;
+	private long liveBytes;
+	/**
+	 * Opens a record file, creating it if it does not exist. The index of an existing file is read before the
+	 * constructor exits.
+	 *
+	 * @param file
+	 * 		The file in which the records are stored.
+	 *
+	 * @throws IOException
+	 * 		If the file cannot be opened, or exists but is not a valid record file.
+	 */
+	public RecordFile(@NotNull File file) throws IOException {
+		this.file = file;
+		open();
+	}
+	private void checkOpen() throws IOException {
+		if(channel == null) {
+			throw new IOException("The record file has been closed.");
+		}
+	}
+	@Override
+	public synchronized void close() throws IOException {
+		if(channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+	/**
+	 * Rewrites the file so that it contains only the current version of each record, releasing the space used by
+	 * replaced and removed records. The new file is written next to the old one and then moved into its place.
+	 *
+	 * @throws IOException
+	 * 		If an I/O error occurs. The original file is left intact in that case.
+	 */
+	public synchronized void compact() throws IOException {
+		checkOpen();
+		File temp = new File(file.getPath() + ".compact");
+		Map<String, Location> moved = new HashMap<>();
+		try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(out, ByteBuffer.allocate(HEADER_SIZE).putInt(0, MAGIC), 0);
+			long pos = HEADER_SIZE;
+			for(Map.Entry<String, Location> entry : index.entrySet()) {
+				Location loc = entry.getValue();
+				long n = 4L + loc.length;
+				long done = 0;
+				while(done < n) {
+					done += channel.transferTo(loc.offset - 4 + done, n - done, out.position(pos + done));
+				}
+				moved.put(entry.getKey(), new Location(pos + 4, loc.length));
+				pos += n;
+			}
+			writeFully(out, ByteBuffer.wrap(encodeIndex(moved, pos)), pos);
+			out.force(true);
+		}
+		channel.close();
+		channel = null;
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		open();
+	}
+	/**
+	 * Whether a record with the provided id exists.
+	 *
+	 * @param id
+	 * 		The id of the record.
+	 *
+	 * @return {@code true} if the record exists, {@code false} otherwise.
+	 */
+	public synchronized boolean contains(@NotNull String id) {
+		return index.containsKey(id);
+	}
+	@NotNull
+	private byte[] encodeIndex(@NotNull Map<String, Location> entries, long indexOffset) throws IOException {
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buf);
+		out.writeInt(entries.size());
+		for(Map.Entry<String, Location> entry : entries.entrySet()) {
+			byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+			out.writeShort(id.length);
+			out.write(id);
+			out.writeLong(entry.getValue().offset);
+			out.writeInt(entry.getValue().length);
+		}
+		out.writeLong(indexOffset);
+		out.writeInt(MAGIC);
+		return buf.toByteArray();
+	}
+	/**
+	 * Retrieves the ids of all records in the file.
+	 *
+	 * @return A copy of the set of ids.
+	 */
+	@NotNull
+	public synchronized Set<String> getIds() {
+		return new HashSet<>(index.keySet());
+	}
+	/**
+	 * Retrieves the number of bytes in the file that are no longer used by any record or by the current index. This
+	 * space is released by {@link #compact()}.
+	 *
+	 * @return The number of wasted bytes.
+	 */
+	public synchronized long getWastedBytes() {
+		return end - HEADER_SIZE - indexBytes - liveBytes;
+	}
+	/**
+	 * Creates a batch which writes several records with a single update of the index.
+	 *
+	 * @return The new batch.
+	 */
+	@NotNull
+	public Batch newBatch() {
+		return new Batch();
+	}
+	private void open() throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		index.clear();
+		indexBytes = 0;
+		liveBytes = 0;
+		end = HEADER_SIZE;
+		long size = channel.size();
+		if(size == 0) {
+			writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(0, MAGIC), 0);
+			return;
+		}
+		if(size < HEADER_SIZE || readFully(ByteBuffer.allocate(HEADER_SIZE), 0).getInt(0) != MAGIC) {
+			close();
+			throw new IOException("Not a valid record file: " + file);
+		}
+		if(readIndex(size)) {
+			return;
+		}
+		// The last append did not finish, so search back for the trailer of the last one that did.
+		long valid = HEADER_SIZE;
+		ByteBuffer block = ByteBuffer.allocate(RECOVERY_BLOCK);
+		int magic = 0;
+		for(long pos = size; pos > HEADER_SIZE && valid == HEADER_SIZE; ) {
+			int n = (int) Math.min(RECOVERY_BLOCK, pos - HEADER_SIZE);
+			block.clear().limit(n);
+			readFully(block, pos - n);
+			for(int i = n - 1; i >= 0; i--) {
+				magic = (magic >>> 8) | (block.get(i) << 24);
+				if(magic == MAGIC && readIndex(pos - n + i + 4)) {
+					valid = pos - n + i + 4;
+					break;
+				}
+			}
+			pos -= n;
+		}
+		channel.truncate(valid);
+		channel.force(false);
+	}
+	/**
+	 * Reads a single record. Only the bytes of that record are read from the file.
+	 *
+	 * @param id
+	 * 		The id of the record.
+	 *
+	 * @return A reader containing the record's data.
+	 * @throws EntryNotFoundException
+	 * 		If there is no record with the provided id.
+	 * @throws IOException
+	 * 		If an I/O error occurs.
+	 */
+	@NotNull
+	public synchronized DataStoreReader read(@NotNull String id) throws EntryNotFoundException, IOException {
+		checkOpen();
+		Location loc = index.get(id);
+		if(loc == null) {
+			throw new EntryNotFoundException(id);
+		}
+		ByteBuffer data = ByteBuffer.allocate(loc.length);
+		readFully(data, loc.offset);
+		return new BinaryDataStoreReader(data.array());
+	}
+	private boolean readIndex(long trailerEnd) throws IOException {
+		if(trailerEnd < HEADER_SIZE + TRAILER_SIZE) {
+			return false;
+		}
+		ByteBuffer trailer = readFully(ByteBuffer.allocate(TRAILER_SIZE), trailerEnd - TRAILER_SIZE);
+		long indexOffset = trailer.getLong(0);
+		if(trailer.getInt(8) != MAGIC || indexOffset < HEADER_SIZE || trailerEnd - TRAILER_SIZE - indexOffset < 4 || trailerEnd - indexOffset > Integer.MAX_VALUE) {
+			return false;
+		}
+		ByteBuffer data = readFully(ByteBuffer.allocate((int) (trailerEnd - TRAILER_SIZE - indexOffset)), indexOffset);
+		data.flip();
+		Map<String, Location> entries = new HashMap<>();
+		long live = 0;
+		try {
+			int count = data.getInt();
+			for(int i = 0; i < count; i++) {
+				byte[] id = new byte[data.getShort() & 0xFFFF];
+				data.get(id);
+				Location loc = new Location(data.getLong(), data.getInt());
+				if(loc.offset < HEADER_SIZE + 4 || loc.length < 0 || loc.offset + loc.length > indexOffset) {
+					return false;
+				}
+				entries.put(new String(id, StandardCharsets.UTF_8), loc);
+				live += 4L + loc.length;
+			}
+		} catch (BufferUnderflowException e) {
+			return false;
+		}
+		if(data.hasRemaining()) {
+			return false;
+		}
+		index.clear();
+		index.putAll(entries);
+		indexBytes = trailerEnd - indexOffset;
+		liveBytes = live;
+		end = trailerEnd;
+		return true;
+	}
+	@NotNull
+	private ByteBuffer readFully(@NotNull ByteBuffer buf, long position) throws IOException {
+		while(buf.hasRemaining()) {
+			if(channel.read(buf, position + buf.position()) == -1) {
+				throw new EOFException();
+			}
+		}
+		return buf;
+	}
+	/**
+	 * Removes a record. The space it used is released by the next call to {@link #compact()}.
+	 *
+	 * @param id
+	 * 		The id of the record.
+	 *
+	 * @return {@code true} if the record existed, {@code false} otherwise.
+	 * @throws IOException
+	 * 		If an I/O error occurs while updating the index.
+	 */
+	public boolean remove(@NotNull String id) throws IOException {
+		Batch batch = newBatch();
+		batch.remove(id);
+		return batch.commit() > 0;
+	}
+	/**
+	 * Retrieves the number of records in the file.
+	 *
+	 * @return The number of records.
+	 */
+	public synchronized int size() {
+		return index.size();
+	}
+	/**
+	 * Writes a single record, replacing any existing record with the same id. This rewrites the whole index, so use a
+	 * {@link Batch} to write many records.
+	 *
+	 * @param id
+	 * 		The id of the record.
+	 * @param record
+	 * 		The writer containing the record's data.
+	 *
+	 * @throws IOException
+	 * 		If an I/O error occurs.
+	 */
+	public void write(@NotNull String id, @NotNull BinaryDataStoreWriter record) throws IOException {
+		Batch batch = newBatch();
+		batch.write(id, record);
+		batch.commit();
+	}
+	private static void writeFully(@NotNull FileChannel ch, @NotNull ByteBuffer buf, long position) throws IOException {
+		while(buf.hasRemaining()) {
+			ch.write(buf, position + buf.position());
+		}
+	}
+	
+	/**
+	 * A set of changes to a {@link RecordFile} which are applied together by {@link #commit()}. Changes are applied in
+	 * the order they were made, so a later write or removal of the same id takes precedence.
+	 */
+	public final class Batch {
+		private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+		private final Map<String, Integer> written = new LinkedHashMap<>();
+		private final Set<String> removed = new HashSet<>();
+		private Batch() {
+		}
+		/**
+		 * Appends all records in the batch to the file, then writes the updated index. The batch is empty afterwards and
+		 * may be reused.
+		 *
+		 * @return The number of records which were written or removed.
+		 * @throws IOException
+		 * 		If an I/O error occurs. The file keeps its previous contents in that case.
+		 */
+		public int commit() throws IOException {
+			synchronized(RecordFile.this) {
+				checkOpen();
+				int changed = 0;
+				long base = end;
+				byte[] bytes = records.toByteArray();
+				Map<String, Location> next = new HashMap<>(index);
+				long live = liveBytes;
+				for(String id : removed) {
+					Location old = next.remove(id);
+					if(old != null) {
+						live -= 4L + old.length;
+						changed++;
+					}
+				}
+				for(Map.Entry<String, Integer> entry : written.entrySet()) {
+					int offset = entry.getValue();
+					int length = ByteBuffer.wrap(bytes, offset, 4).getInt();
+					Location old = next.put(entry.getKey(), new Location(base + offset + 4, length));
+					if(old != null) {
+						live -= 4L + old.length;
+					}
+					live += 4L + length;
+					changed++;
+				}
+				if(changed == 0) {
+					return 0;
+				}
+				long indexOffset = base + bytes.length;
+				byte[] encoded = encodeIndex(next, indexOffset);
+				// Everything goes after the current trailer, which stays valid until the new one is complete.
+				try {
+					writeFully(channel, ByteBuffer.wrap(bytes), base);
+					writeFully(channel, ByteBuffer.wrap(encoded), indexOffset);
+					channel.force(false);
+				} catch (IOException e) {
+					try {
+						channel.truncate(base);
+					} catch (IOException suppressed) {
+						e.addSuppressed(suppressed);
+					}
+					throw e;
+				}
+				index.clear();
+				index.putAll(next);
+				liveBytes = live;
+				indexBytes = encoded.length;
+				end = indexOffset + encoded.length;
+				records.reset();
+				written.clear();
+				removed.clear();
+				return changed;
+			}
+		}
+		/**
+		 * Adds the removal of a record to the batch.
+		 *
+		 * @param id
+		 * 		The id of the record.
+		 */
+		public void remove(@NotNull String id) {
+			written.remove(id);
+			removed.add(id);
+		}
+		/**
+		 * Adds a record to the batch, replacing any existing record with the same id when the batch is committed. The
+		 * record's data is serialized immediately, so the writer may be reused afterwards.
+		 *
+		 * @param id
+		 * 		The id of the record.
+		 * @param record
+		 * 		The writer containing the record's data.
+		 */
+		public void write(@NotNull String id, @NotNull BinaryDataStoreWriter record) {
+			ByteArrayOutputStream data = new ByteArrayOutputStream();
+			record.save(data);
+			written.remove(id);
+			removed.remove(id);
+			written.put(id, records.size());
+			records.write(ByteBuffer.allocate(4).putInt(data.size()).array(), 0, 4);
+			records.write(data.toByteArray(), 0, data.size());
+		}
+	}
+	
+	private static class Location {
+		final long offset;
+		final int length;
+		Location(long offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+}
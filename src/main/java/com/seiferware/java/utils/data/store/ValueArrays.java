@@ -0,0 +1,179 @@
+package com.seiferware.java.utils.data.store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores arrays and collections of primitives, boxed primitives and strings through the typed array methods of {@link
+ * DataStoreWriter} and {@link DataStoreReader}, so that {@link DataStoreWriter#defaultWriteObject(Object)} and {@link
+ * DataStoreReader#defaultReadObject(Object)} can handle them in bulk rather than as one complex object per element.
+ */
+final class ValueArrays {
+	private static final Map<Class<?>, Class<?>> TYPES = new HashMap<>();
+	static {
+		Class<?>[][] pairs = {{int.class, Integer.class}, {long.class, Long.class}, {float.class, Float.class}, {double.class, Double.class}, {boolean.class, Boolean.class}, {byte.class, Byte.class}, {char.class, Character.class}, {String.class, String.class}};
+		for(Class<?>[] pair : pairs) {
+			TYPES.put(pair[0], pair[1]);
+			TYPES.put(pair[1], pair[1]);
+		}
+	}
+	private ValueArrays() {
+	}
+	/**
+	 * Converts an array of any component type to an array of objects, boxing primitives.
+	 */
+	@NotNull
+	static Object[] box(@NotNull Object array) {
+		if(array instanceof Object[]) {
+			return (Object[]) array;
+		}
+		Object[] res = new Object[Array.getLength(array)];
+		for(int i = 0; i < res.length; i++) {
+			res[i] = Array.get(array, i);
+		}
+		return res;
+	}
+	/**
+	 * Whether every item is a non-null instance of {@code type}, which must be a value type.
+	 */
+	static boolean canWrite(@Nullable Class<?> type, @NotNull Object[] items) {
+		Class<?> boxed = wrap(type);
+		if(boxed == null) {
+			return false;
+		}
+		for(Object o : items) {
+			if(!boxed.isInstance(o)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Whether {@code type} is a primitive, a boxed primitive or {@code String}.
+	 */
+	static boolean isValueType(@Nullable Class<?> type) {
+		return wrap(type) != null;
+	}
+	/**
+	 * Reads an array of values of the provided type.
+	 *
+	 * @return A primitive array, a {@code String[]}, or {@code null} if there is no such array in the current context.
+	 */
+	@Nullable
+	static Object read(@NotNull DataStoreReader reader, @NotNull String name, @NotNull Class<?> type) {
+		Class<?> boxed = wrap(type);
+		try {
+			if(boxed == Integer.class) {
+				return reader.readIntArray(name);
+			} else if(boxed == Long.class) {
+				return reader.readLongArray(name);
+			} else if(boxed == Float.class) {
+				return reader.readFloatArray(name);
+			} else if(boxed == Double.class) {
+				return reader.readDoubleArray(name);
+			} else if(boxed == Boolean.class) {
+				return reader.readBooleanArray(name);
+			} else if(boxed == Byte.class) {
+				return reader.readByteArray(name);
+			} else if(boxed == Character.class) {
+				return reader.readCharArray(name);
+			} else if(boxed == String.class) {
+				return reader.readStringArray(name);
+			}
+		} catch (EntryNotFoundException | IncompatibleTypeException ignored) {
+		}
+		return null;
+	}
+	/**
+	 * Writes a primitive array, or an array or collection of values of the provided type.
+	 *
+	 * @return {@code true} if the values were written, {@code false} if they are not all non-null values of a value
+	 * type, in which case nothing is written.
+	 */
+	static boolean tryWrite(@NotNull DataStoreWriter writer, @NotNull String name, @Nullable Class<?> type, @NotNull Object values) {
+		if(values instanceof int[]) {
+			writer.writeIntArray(name, (int[]) values);
+		} else if(values instanceof long[]) {
+			writer.writeLongArray(name, (long[]) values);
+		} else if(values instanceof float[]) {
+			writer.writeFloatArray(name, (float[]) values);
+		} else if(values instanceof double[]) {
+			writer.writeDoubleArray(name, (double[]) values);
+		} else if(values instanceof boolean[]) {
+			writer.writeBooleanArray(name, (boolean[]) values);
+		} else if(values instanceof byte[]) {
+			writer.writeByteArray(name, (byte[]) values);
+		} else if(values instanceof char[]) {
+			writer.writeCharArray(name, (char[]) values);
+		} else {
+			Object[] items = values instanceof Collection ? ((Collection<?>) values).toArray() : (Object[]) values;
+			if(!canWrite(type, items)) {
+				return false;
+			}
+			write(writer, name, type, items);
+		}
+		return true;
+	}
+	@Nullable
+	private static Class<?> wrap(@Nullable Class<?> type) {
+		return type == null ? null : TYPES.get(type);
+	}
+	/**
+	 * Writes values which have already been checked with {@link #canWrite(Class, Object[])}.
+	 */
+	static void write(@NotNull DataStoreWriter writer, @NotNull String name, @NotNull Class<?> type, @NotNull Object[] items) {
+		Class<?> boxed = wrap(type);
+		int n = items.length;
+		if(boxed == Integer.class) {
+			int[] a = new int[n];
+			for(int i = 0; i < n; i++) {
+				a[i] = (Integer) items[i];
+			}
+			writer.writeIntArray(name, a);
+		} else if(boxed == Long.class) {
+			long[] a = new long[n];
+			for(int i = 0; i < n; i++) {
+				a[i] = (Long) items[i];
+			}
+			writer.writeLongArray(name, a);
+		} else if(boxed == Float.class) {
+			float[] a = new float[n];
+			for(int i = 0; i < n; i++) {
+				a[i] = (Float) items[i];
+			}
+			writer.writeFloatArray(name, a);
+		} else if(boxed == Double.class) {
+			double[] a = new double[n];
+			for(int i = 0; i < n; i++) {
+				a[i] = (Double) items[i];
+			}
+			writer.writeDoubleArray(name, a);
+		} else if(boxed == Boolean.class) {
+			boolean[] a = new boolean[n];
+			for(int i = 0; i < n; i++) {
+				a[i] = (Boolean) items[i];
+			}
+			writer.writeBooleanArray(name, a);
+		} else if(boxed == Byte.class) {
+			byte[] a = new byte[n];
+			for(int i = 0; i < n; i++) {
+				a[i] = (Byte) items[i];
+			}
+			writer.writeByteArray(name, a);
+		} else if(boxed == Character.class) {
+			char[] a = new char[n];
+			for(int i = 0; i < n; i++) {
+				a[i] = (Character) items[i];
+			}
+			writer.writeCharArray(name, a);
+		} else {
+			writer.writeStringArray(name, Arrays.copyOf(items, n, String[].class));
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package com.seiferware.java.utils.data.store;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An implementation of {@link DataStoreStreamReader} for XML documents written by {@link XmlDataStoreWriter}. The
+ * document is read with a streaming parser rather than being loaded into a DOM tree.
+ * <p>
+ * XML does not record the type of values, so attributes are always reported as strings. An element with no attributes
+ * and only text is reported as a string, and an element whose children are all text-only {@code item} elements is
+ * reported as a string array. An empty complex object with no attributes is written as an empty element, which looks
+ * the same as an empty string, so it is reported as a string with the value {@code ""}; visitors which expect an object
+ * with that name should treat such a string as an empty one. Arrays are marked with an attribute, so empty arrays are
+ * reported as arrays. The items of a possible string array are buffered until the element closes, so memory use
+ * is bounded by the largest string array rather than by the size of the document.
+ *
+ * @see DataStoreStreamReader
+ * @see XmlDataStoreReader
+ */
+public class XmlDataStoreStreamReader extends DataStoreStreamReader {
+	private static final int COMPLEX = 0;
+	private static final int ARRAY = 1;
+	private static final int PENDING = 2;
+	private static final int STRING_ARRAY = 3;
+	protected final InputStream stream;
+	protected final XMLStreamReader in;
+	private final List<Frame> stack = new ArrayList<>();
+	private DataStoreVisitor visitor;
+	private int reported;
+	/**
+	 * Creates a new instance which reads the XML document from a file.
+	 *
+	 * @param file
+	 * 		The file that contains the XML.
+	 *
+	 * @throws IOException
+	 * 		If the file cannot be opened or the XML parser cannot be created.
+	 */
+	public XmlDataStoreStreamReader(@NotNull File file) throws IOException {
+		this(new FileInputStream(file));
+	}
+	/**
+	 * Creates a new instance which reads the XML document from a stream. Nothing is read until {@link
+	 * #next(DataStoreVisitor)} or {@link #accept(DataStoreVisitor)} is called.
+	 *
+	 * @param in
+	 * 		A stream from which the XML document will be read.
+	 *
+	 * @throws IOException
+	 * 		If the XML parser cannot be created.
+	 */
+	public XmlDataStoreStreamReader(@NotNull InputStream in) throws IOException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		try {
+			this.in = factory.createXMLStreamReader(in);
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+		this.stream = in;
+	}
+	@Override
+	public void close() throws IOException {
+		try {
+			in.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			stream.close();
+		}
+	}
+	private void endElement() {
+		Frame f = stack.remove(stack.size() - 1);
+		if(stack.isEmpty()) {
+			return;
+		}
+		Frame parent = stack.get(stack.size() - 1);
+		switch(f.kind) {
+			case PENDING:
+				if(parent.kind == STRING_ARRAY) {
+					parent.items.add(f.text.toString());
+				} else {
+					report();
+					visitor.stringValue(f.name, f.text.toString());
+				}
+				break;
+			case STRING_ARRAY:
+				report();
+				visitor.stringArrayValue(f.name, f.items.toArray(new String[f.items.size()]));
+				break;
+			default:
+				report();
+				visitor.end();
+				break;
+		}
+	}
+	@Override
+	public boolean next(@NotNull DataStoreVisitor visitor) throws IOException {
+		this.visitor = visitor;
+		int before = reported;
+		try {
+			while(reported == before && in.hasNext()) {
+				switch(in.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						startElement();
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						endElement();
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+					case XMLStreamConstants.SPACE:
+						if(!stack.isEmpty() && stack.get(stack.size() - 1).kind == PENDING) {
+							stack.get(stack.size() - 1).text.append(in.getText());
+						}
+						break;
+				}
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			this.visitor = null;
+		}
+		return reported != before;
+	}
+	private void report() {
+		reported++;
+	}
+	private void reportAttributes() {
+		for(int i = 0; i < in.getAttributeCount(); i++) {
+			report();
+			visitor.stringValue(in.getAttributeLocalName(i), in.getAttributeValue(i));
+		}
+	}
+	/**
+	 * Decides that an element whose type was not yet known is a complex object, and reports it as such. Its parent is
+	 * resolved first if it was also undecided.
+	 */
+	private void resolveComplex(int index) {
+		Frame f = stack.get(index);
+		if(index > 0 && stack.get(index - 1).kind == STRING_ARRAY) {
+			resolveComplex(index - 1);
+		}
+		report();
+		visitor.startComplex(f.name);
+		if(f.kind == STRING_ARRAY) {
+			for(String item : f.items) {
+				report();
+				visitor.stringValue("item", item);
+			}
+			f.items = null;
+		}
+		f.kind = COMPLEX;
+	}
+	private void startElement() {
+		String name = in.getLocalName();
+		if(stack.isEmpty()) {
+			stack.add(new Frame(name, COMPLEX));
+			reportAttributes();
+			return;
+		}
+		boolean plainItem = name.equals("item") && in.getAttributeCount() == 0;
+		int top = stack.size() - 1;
+		Frame parent = stack.get(top);
+		if(parent.kind == PENDING && plainItem) {
+			parent.kind = STRING_ARRAY;
+			parent.items = new ArrayList<>();
+		} else if(parent.kind == PENDING || parent.kind == STRING_ARRAY && !plainItem) {
+			resolveComplex(top);
+		}
+		switch(parent.kind) {
+			case ARRAY:
+				report();
+				visitor.startArrayElement(parent.count++);
+				stack.add(new Frame(name, COMPLEX));
+				reportAttributes();
+				break;
+			case STRING_ARRAY:
+				stack.add(new Frame(name, PENDING));
+				break;
+			default:
+				if("array".equals(in.getAttributeValue(null, "type"))) {
+					report();
+					visitor.startArray(name);
+					stack.add(new Frame(name, ARRAY));
+				} else if(in.getAttributeCount() > 0) {
+					report();
+					visitor.startComplex(name);
+					stack.add(new Frame(name, COMPLEX));
+					reportAttributes();
+				} else {
+					stack.add(new Frame(name, PENDING));
+				}
+				break;
+		}
+	}
+	private static class Frame {
+		final String name;
+		final StringBuilder text = new StringBuilder();
+		int kind;
+		int count;
+		List<String> items;
+		Frame(@NotNull String name, int kind) {
+			this.name = name;
+			this.kind = kind;
+		}
+	}
+}
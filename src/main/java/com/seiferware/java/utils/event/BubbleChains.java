@@ -0,0 +1,129 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the bubble chains of targets whose {@link EventTarget#isBubbleChainStable()} returns {@code true}. For each
+ * target, the cache holds the target and its ancestors, the listeners each of them had when the chain was built, and,
+ * for each event class fired on the target, which of them have listener methods for it. All of them are held weakly,
+ * so the cache does not keep a tree of targets or listeners reachable.
+ * <p>
+ * A chain is only rebuilt when the listeners of one of its own targets change. Changes elsewhere in the registry cost
+ * one lookup per target in the chain, the next time it is used.
+ */
+final class BubbleChains {
+	private final ConcurrentMap<Object, Chain> chains = new ConcurrentHashMap<>();
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+	/**
+	 * Retrieves the chain of {@code target}, updating it if listeners of the targets in it have been added or removed
+	 * since it was cached.
+	 */
+	@NotNull
+	Chain get(@NotNull EventTarget target, @NotNull ListenerRegistry registry) {
+		Reference<?> ref;
+		while((ref = queue.poll()) != null) {
+			chains.remove(ref);
+		}
+		WeakKey.Lookup lookup = new WeakKey.Lookup(target);
+		Chain chain = chains.get(lookup);
+		if(chain == null) {
+			chain = new Chain(Chain.nodesOf(target), target.getClass(), registry);
+			chains.put(new WeakKey(target, queue), chain);
+		} else if(chain.registry != registry || !chain.isCurrent()) {
+			Chain updated = new Chain(chain.nodes, chain.targetClass, registry);
+			// The map keeps its key, so no new reference is registered with the queue.
+			chains.replace(lookup, chain, updated);
+			chain = updated;
+		}
+		return chain;
+	}
+	
+	static final class Chain {
+		final WeakReference<?>[] nodes;
+		private final Class<?> targetClass;
+		private final ListenerRegistry registry;
+		private final WeakReference<?>[] seen;
+		private final ConcurrentMap<Class<?>, int[]> listening = new ConcurrentHashMap<>();
+		private volatile int version;
+		private Chain(@NotNull WeakReference<?>[] nodes, @NotNull Class<?> targetClass, @NotNull ListenerRegistry registry) {
+			this.nodes = nodes;
+			this.targetClass = targetClass;
+			this.registry = registry;
+			// The version is read first, so a change made while the chain is built makes it out of date.
+			this.version = registry.getVersion();
+			this.seen = new WeakReference<?>[nodes.length];
+			for(int i = 0; i < nodes.length; i++) {
+				Object node = nodes[i].get();
+				ListenerRegistry.Listeners current = node == null ? null : registry.get(node);
+				seen[i] = current == null ? null : new WeakReference<>(current);
+			}
+		}
+		/**
+		 * Whether the listeners of every target in the chain are the ones it was built with. Listeners objects are
+		 * replaced whenever they change, so comparing them by identity is enough.
+		 */
+		private boolean isCurrent() {
+			int current = registry.getVersion();
+			if(current == version) {
+				return true;
+			}
+			for(int i = 0; i < nodes.length; i++) {
+				Object node = nodes[i].get();
+				ListenerRegistry.Listeners had = listenersAt(i);
+				if(node != null && (seen[i] != null && had == null || registry.get(node) != had)) {
+					return false;
+				}
+			}
+			version = current;
+			return true;
+		}
+		@Nullable
+		private ListenerRegistry.Listeners listenersAt(int index) {
+			return seen[index] == null ? null : (ListenerRegistry.Listeners) seen[index].get();
+		}
+		/**
+		 * Retrieves the indices in {@link #nodes} of the targets which have listener methods for {@code eventClass}, in
+		 * bubbling order.
+		 */
+		@NotNull
+		int[] listening(@NotNull Class<?> eventClass) {
+			int[] res = listening.get(eventClass);
+			if(res == null) {
+				int[] found = new int[nodes.length];
+				int n = 0;
+				for(int i = 0; i < nodes.length; i++) {
+					ListenerRegistry.Listeners current = listenersAt(i);
+					if(current != null && current.forEvent(eventClass, targetClass, registry).length > 0) {
+						found[n++] = i;
+					}
+				}
+				res = new int[n];
+				System.arraycopy(found, 0, res, 0, n);
+				int[] existing = listening.putIfAbsent(eventClass, res);
+				if(existing != null) {
+					res = existing;
+				}
+			}
+			return res;
+		}
+		@NotNull
+		private static WeakReference<?>[] nodesOf(@NotNull EventTarget target) {
+			List<WeakReference<?>> found = new ArrayList<>();
+			Object node = target;
+			while(node != null) {
+				found.add(new WeakReference<>(node));
+				node = node instanceof EventTarget ? ((EventTarget) node).getBubbleParent() : null;
+			}
+			return found.toArray(new WeakReference<?>[found.size()]);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An event which may be combined with a pending event of the same class that has an equal coalescing key. Events that
+ * fire much more often than they can be handled, such as position updates, can implement this so that an {@link
+ * EventQueue}, or a lane of {@link Event#fireAsync()}, holds at most one pending event per key.
+ * <p>
+ * A coalesced event takes the place of the pending event, so it is handled no later than the pending event would have
+ * been.
+ */
+public interface CoalescingEvent {
+	/**
+	 * Combines this event with a pending event of the same class and with an equal coalescing key. By default, this
+	 * event replaces the pending one, which is right for events that carry a complete state. Events that carry changes
+	 * should override this to return an event which contains the changes of both.
+	 *
+	 * @param pending
+	 * 		The event which has not been handled yet. It was fired before this one.
+	 *
+	 * @return The event to handle instead of both. It must be of the same class as this event.
+	 */
+	@NotNull
+	default Event coalesce(@NotNull Event pending) {
+		return (Event) this;
+	}
+	/**
+	 * Retrieves the key which identifies the events that may be combined with this one, for example the target or the
+	 * id of the object whose position changed.
+	 *
+	 * @return The coalescing key, which must have consistent {@code equals} and {@code hashCode} methods.
+	 */
+	@NotNull
+	Object getCoalescingKey();
+}
@@ -0,0 +1,33 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Identifies the pending event that a {@link CoalescingEvent} may be combined with: events of the same class, with
+ * equal coalescing keys, waiting in the same lane.
+ */
+final class CoalescingKey {
+	private final Object lane;
+	private final Class<?> eventClass;
+	private final Object key;
+	CoalescingKey(@Nullable Object lane, @NotNull CoalescingEvent event) {
+		this.lane = lane;
+		this.eventClass = event.getClass();
+		this.key = event.getCoalescingKey();
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof CoalescingKey)) {
+			return false;
+		}
+		CoalescingKey other = (CoalescingKey) obj;
+		return eventClass == other.eventClass && key.equals(other.key) && Objects.equals(lane, other.lane);
+	}
+	@Override
+	public int hashCode() {
+		return (eventClass.hashCode() * 31 + key.hashCode()) * 31 + Objects.hashCode(lane);
+	}
+}
@@ -0,0 +1,57 @@
+package com.seiferware.java.utils.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The Flight Recorder event of one listener method call. {@link DispatchMonitor} only loads this class once it has
+ * found Flight Recorder, and only refers to its instances as {@code Object}, so that it still works on JVMs without
+ * it.
+ */
+@Name("com.seiferware.event.ListenerDispatch")
+@Label("Listener Dispatch")
+@Category({"Seiferware", "Events"})
+@Description("A call to a @Listener method")
+@StackTrace(false)
+final class DispatchFlightEvent extends jdk.jfr.Event {
+	@Label("Listener Method")
+	String method;
+	@Label("Event Class")
+	Class<?> eventClass;
+	@Label("Failed")
+	@Description("Whether the method threw an exception")
+	boolean failed;
+	/**
+	 * Ends a call which was started with {@link #start()}.
+	 */
+	static void finish(@NotNull Object started, @NotNull String method, @NotNull Class<?> eventClass, boolean failed) {
+		DispatchFlightEvent e = (DispatchFlightEvent) started;
+		e.end();
+		if(e.shouldCommit()) {
+			e.method = method;
+			e.eventClass = eventClass;
+			e.failed = failed;
+			e.commit();
+		}
+	}
+	/**
+	 * Starts timing a call.
+	 *
+	 * @return The event to pass to {@link #finish(Object, String, Class, boolean)}, or {@code null} if no recording has
+	 * enabled it.
+	 */
+	@Nullable
+	static Object start() {
+		DispatchFlightEvent e = new DispatchFlightEvent();
+		if(!e.isEnabled()) {
+			return null;
+		}
+		e.begin();
+		return e;
+	}
+}
@@ -0,0 +1,155 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how often and how long each {@link Listener} method runs, for each class of event it handles. A monitor is
+ * installed with {@link Event#setDispatchMonitor(DispatchMonitor)}, and its measurements are read with {@link
+ * #snapshot()}. Counters are striped, so threads firing events at the same time do not contend for them.
+ * <p>
+ * While a monitor is installed, each listener call is also reported to Java Flight Recorder as a {@code
+ * com.seiferware.event.ListenerDispatch} event, if the JVM has Flight Recorder and a recording has enabled that event.
+ */
+public class DispatchMonitor {
+	private static final boolean FLIGHT_RECORDER = isFlightRecorderAvailable();
+	private final ConcurrentMap<Event.MethodReference, ConcurrentMap<Class<?>, Counters>> counters = new ConcurrentHashMap<>();
+	private final long slowNanos;
+	private final SlowListenerHandler slowHandler;
+	/**
+	 * Creates a monitor which only keeps statistics.
+	 */
+	public DispatchMonitor() {
+		this.slowNanos = Long.MAX_VALUE;
+		this.slowHandler = null;
+	}
+	/**
+	 * Creates a monitor which also reports listener calls that take longer than a threshold.
+	 *
+	 * @param slowThreshold
+	 * 		The longest a listener method may take without being reported, in units of {@code unit}.
+	 * @param unit
+	 * 		The unit of {@code slowThreshold}.
+	 * @param slowHandler
+	 * 		Is told about each slow call.
+	 */
+	public DispatchMonitor(long slowThreshold, @NotNull TimeUnit unit, @NotNull SlowListenerHandler slowHandler) {
+		this.slowNanos = unit.toNanos(slowThreshold);
+		this.slowHandler = slowHandler;
+	}
+	@NotNull
+	private Counters counters(@NotNull Event.MethodReference method, @NotNull Class<? extends Event> eventClass) {
+		ConcurrentMap<Class<?>, Counters> byEvent = counters.get(method);
+		if(byEvent == null) {
+			byEvent = counters.computeIfAbsent(method, k -> new ConcurrentHashMap<>());
+		}
+		Counters c = byEvent.get(eventClass);
+		if(c == null) {
+			c = byEvent.computeIfAbsent(eventClass, k -> new Counters(method.getName(), eventClass));
+		}
+		return c;
+	}
+	/**
+	 * Calls a listener method and records how long it took.
+	 */
+	void invoke(@NotNull Event.MethodReference method, @NotNull Object listener, @NotNull Event event, @NotNull Object target) throws Throwable {
+		Object flight = FLIGHT_RECORDER ? DispatchFlightEvent.start() : null;
+		Throwable failure = null;
+		long start = System.nanoTime();
+		try {
+			method.getInvoker().invoke(listener, event, target);
+		} catch (Throwable e) {
+			failure = e;
+		}
+		long nanos = System.nanoTime() - start;
+		if(flight != null) {
+			DispatchFlightEvent.finish(flight, method.getName(), event.getClass(), failure != null);
+		}
+		counters(method, event.getClass()).record(nanos, failure != null);
+		if(nanos > slowNanos) {
+			try {
+				slowHandler.handle(event, listener, method.getName(), nanos);
+			} catch (Throwable e) {
+				// The listener's own exception is the one the exception handler should see.
+				if(failure == null) {
+					throw e;
+				}
+				failure.addSuppressed(e);
+			}
+		}
+		if(failure != null) {
+			throw failure;
+		}
+	}
+	private static boolean isFlightRecorderAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+	/**
+	 * Discards all measurements.
+	 */
+	public void reset() {
+		counters.clear();
+	}
+	/**
+	 * Copies the measurements taken so far. Calls which are in progress while the copy is made may be counted in some
+	 * of the statistics of a method and not others.
+	 *
+	 * @return The statistics of each listener method and event class which has been measured, in no particular order.
+	 */
+	@NotNull
+	public List<ListenerStatistics> snapshot() {
+		List<ListenerStatistics> res = new ArrayList<>();
+		for(ConcurrentMap<Class<?>, Counters> byEvent : counters.values()) {
+			for(Counters c : byEvent.values()) {
+				res.add(c.snapshot());
+			}
+		}
+		return res;
+	}
+	
+	private static final class Counters {
+		private final String method;
+		private final Class<? extends Event> eventClass;
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+		private final AtomicLongArray histogram = new AtomicLongArray(64);
+		Counters(@NotNull String method, @NotNull Class<? extends Event> eventClass) {
+			this.method = method;
+			this.eventClass = eventClass;
+		}
+		void record(long nanos, boolean failed) {
+			// A clock that goes backwards must not produce a negative bucket.
+			nanos = Math.max(nanos, 0);
+			calls.increment();
+			if(failed) {
+				failures.increment();
+			}
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+			histogram.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+		}
+		@NotNull
+		ListenerStatistics snapshot() {
+			long[] buckets = new long[histogram.length()];
+			for(int i = 0; i < buckets.length; i++) {
+				buckets[i] = histogram.get(i);
+			}
+			return new ListenerStatistics(method, eventClass, calls.sum(), failures.sum(), totalNanos.sum(), maxNanos.get(), buckets);
+		}
+	}
+}
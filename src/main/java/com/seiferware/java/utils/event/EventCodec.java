@@ -0,0 +1,37 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the data of one class of event to and from bytes, for {@link EventRecorder} and {@link EventReplayer}. The
+ * event's class, target and time are recorded separately, so a codec only writes the event's own fields. Events with no
+ * fields of their own can use a codec which writes nothing.
+ *
+ * @param <E>
+ * 		The class of event.
+ */
+public interface EventCodec<E extends Event> {
+	/**
+	 * Creates an event from the bytes written by {@link #encode(Event, ByteBuffer)}.
+	 *
+	 * @param target
+	 * 		The target of the recorded event, as resolved by the replayer.
+	 * @param in
+	 * 		The bytes of the event. Its position is at the first byte written by {@link #encode(Event, ByteBuffer)}.
+	 *
+	 * @return The event, ready to be fired.
+	 */
+	@NotNull
+	E decode(@NotNull Object target, @NotNull ByteBuffer in);
+	/**
+	 * Writes the data of an event.
+	 *
+	 * @param event
+	 * 		The event being fired.
+	 * @param out
+	 * 		The buffer to write to, which has room for at least the recorder's maximum record size.
+	 */
+	void encode(@NotNull E event, @NotNull ByteBuffer out);
+}
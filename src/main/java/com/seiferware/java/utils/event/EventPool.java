@@ -0,0 +1,87 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * Recycles instances of an event class, so that frequently fired events do not allocate a new object each time. Each
+ * thread has its own pool, so acquiring and releasing events takes no locks.
+ * <p>
+ * An event taken from the pool with {@link #acquire()} is initialized with {@link Event#reset(Object)} and fired with
+ * {@link #fire(Event)}, which returns it to the pool afterwards. Listeners which keep a reference to the event after
+ * they return must call {@link Event#retain()}, which keeps the event from being recycled. {@link EventQueue} and
+ * {@link Event#fireAsync()} do this automatically.
+ *
+ * @param <E>
+ * 		The type of the pooled events.
+ */
+public class EventPool<E extends Event> {
+	private static final int DEFAULT_SIZE = 16;
+	private final Supplier<E> factory;
+	private final int maxSize;
+	private final ThreadLocal<ArrayDeque<E>> pools = ThreadLocal.withInitial(ArrayDeque::new);
+	/**
+	 * Creates a pool which keeps up to 16 idle events per thread.
+	 *
+	 * @param factory
+	 * 		Creates new events when a thread's pool is empty. The events it creates do not need a target.
+	 */
+	public EventPool(@NotNull Supplier<E> factory) {
+		this(factory, DEFAULT_SIZE);
+	}
+	/**
+	 * Creates a pool.
+	 *
+	 * @param factory
+	 * 		Creates new events when a thread's pool is empty. The events it creates do not need a target.
+	 * @param maxSize
+	 * 		The maximum number of idle events kept per thread. Events released while the pool is full are left to the
+	 * 		garbage collector.
+	 */
+	public EventPool(@NotNull Supplier<E> factory, int maxSize) {
+		this.factory = factory;
+		this.maxSize = maxSize;
+	}
+	/**
+	 * Takes an idle event from the current thread's pool, or creates one if there is none. {@link
+	 * Event#reset(Object)} must be called on it before it is fired.
+	 *
+	 * @return The event.
+	 */
+	@NotNull
+	public E acquire() {
+		E event = pools.get().poll();
+		return event == null ? factory.get() : event;
+	}
+	/**
+	 * Fires an event, then returns it to the current thread's pool unless a listener retained it.
+	 *
+	 * @param event
+	 * 		An event from {@link #acquire()}.
+	 */
+	public void fire(@NotNull E event) {
+		try {
+			event.fire();
+		} finally {
+			if(!event.isRetained()) {
+				release(event);
+			}
+		}
+	}
+	/**
+	 * Returns an event to the current thread's pool. The event's references are cleared, so the pool does not keep its
+	 * target or data reachable. The event must not be used afterwards.
+	 *
+	 * @param event
+	 * 		The event to recycle.
+	 */
+	public void release(@NotNull E event) {
+		event.clear();
+		ArrayDeque<E> pool = pools.get();
+		if(pool.size() < maxSize) {
+			pool.push(event);
+		}
+	}
+}
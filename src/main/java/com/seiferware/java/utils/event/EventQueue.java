@@ -3,12 +3,23 @@ package com.seiferware.java.utils.event;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * A mechanism for catching events and then handling them when ready. Useful for catching asynchronous events and
  * handling them in a main loop, or vice versa.
+ * <p>
+ * Events are stored in a ring buffer which is allocated when the queue is created. Any number of threads may fire
+ * events into the queue, but it is meant to be emptied by a single thread, preferably in batches with {@link
+ * #drainTo(Consumer, int)}. A queue created with a capacity never grows; when it is full, its {@link OverflowPolicy}
+ * decides what happens to new events.
+ * <p>
+ * An event which implements {@link CoalescingEvent} is combined with a queued event of the same class and coalescing
+ * key, if there is one, whether or not the queue is full.
  *
  * @param <E>
  * 		The type of the {@link Event} to be listened for. Will catch all subclasses of {@code E}.
@@ -17,11 +28,29 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * 		target.
  */
 public class EventQueue<E extends Event, T> {
-	protected final Queue<E> queue = new ConcurrentLinkedQueue<>();
+	private static final int DEFAULT_CAPACITY = 64;
+	/**
+	 * A view of the queued events as a {@link Queue}, for subclasses written when the events were kept in a linked
+	 * queue. Its operations call the methods of this class, so it follows the capacity and overflow policy.
+	 */
+	protected final Queue<E> queue = new QueueView();
 	private final Class<E> eventClass;
 	private final Class<T> targetClass;
+	private final boolean bounded;
+	private final OverflowPolicy policy;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final Map<CoalescingKey, Long> pending = new HashMap<>();
+	private Object[] items;
+	private int head = 0;
+	private int count = 0;
+	private long dropped = 0;
+	private long headSequence = 0;
+	private Thread drainer;
 	/**
-	 * Creates the event queue, and informs it which classes to listen for.
+	 * Creates the event queue, and informs it which classes to listen for. The queue has no capacity limit; it grows
+	 * as needed.
 	 *
 	 * @param eventClass
 	 * 		Only events that match this class, or a subclass of it will be stored in the queue.
@@ -31,11 +60,206 @@ public class EventQueue<E extends Event, T> {
 	public EventQueue(@NotNull Class<E> eventClass, @NotNull Class<T> targetClass) {
 		this.eventClass = eventClass;
 		this.targetClass = targetClass;
+		this.bounded = false;
+		this.policy = OverflowPolicy.BLOCK;
+		this.items = new Object[DEFAULT_CAPACITY];
+	}
+	/**
+	 * Creates an event queue which holds at most {@code capacity} events.
+	 *
+	 * @param eventClass
+	 * 		Only events that match this class, or a subclass of it will be stored in the queue.
+	 * @param targetClass
+	 * 		Only events whose targets match this class or a subclass of it will be stored in the queue.
+	 * @param capacity
+	 * 		The maximum number of events in the queue.
+	 * @param policy
+	 * 		What to do with events that arrive while the queue is full.
+	 */
+	public EventQueue(@NotNull Class<E> eventClass, @NotNull Class<T> targetClass, int capacity, @NotNull OverflowPolicy policy) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be positive.");
+		}
+		this.eventClass = eventClass;
+		this.targetClass = targetClass;
+		this.bounded = true;
+		this.policy = policy;
+		this.items = new Object[capacity];
+	}
+	/**
+	 * Combines a coalescing event with the queued event that has the same class and coalescing key, if there is one.
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean coalesce(@NotNull CoalescingEvent event) {
+		Long sequence = pending.get(new CoalescingKey(null, event));
+		if(sequence == null) {
+			return false;
+		}
+		Event queued = (Event) items[(int) ((head + sequence - headSequence) % items.length)];
+		replace(sequence, (E) event.coalesce(queued));
+		return true;
+	}
+	/**
+	 * Replaces a queued event with the same class and target as {@code event}, if there is one.
+	 */
+	private boolean coalesceByTarget(@NotNull E event) {
+		for(int i = count - 1; i >= 0; i--) {
+			Event queued = (Event) items[(head + i) % items.length];
+			if(queued.getClass() == event.getClass() && queued.getTarget().equals(event.getTarget())) {
+				if(queued instanceof CoalescingEvent) {
+					pending.remove(new CoalescingKey(null, (CoalescingEvent) queued));
+				}
+				replace(headSequence + i, event);
+				return true;
+			}
+		}
+		return false;
+	}
+	/**
+	 * Removes up to {@code maxBatch} events from the queue and passes them to {@code consumer}, oldest first. Each event
+	 * is removed before it is passed on, so the consumer may fire events into this queue.
+	 *
+	 * @param consumer
+	 * 		The action to perform on each event.
+	 * @param maxBatch
+	 * 		The maximum number of events to remove.
+	 *
+	 * @return The number of events which were removed.
+	 */
+	public int drainTo(@NotNull Consumer<? super E> consumer, int maxBatch) {
+		int n = 0;
+		while(n < maxBatch) {
+			E event = poll();
+			if(event == null) {
+				break;
+			}
+			consumer.accept(event);
+			n++;
+		}
+		return n;
+	}
+	/**
+	 * Removes events from the queue one at a time and passes them to {@code consumer}, oldest first, until the queue is
+	 * empty, {@code maxBatch} events have been handled or the time budget has been spent. The budget is checked before
+	 * each event, so the drain overruns it by at most the time taken to handle one event. This keeps a burst of events
+	 * from delaying a main loop's other work; events which are left wait for the next drain.
+	 *
+	 * @param consumer
+	 * 		The action to perform on each event.
+	 * @param maxBatch
+	 * 		The maximum number of events to remove.
+	 * @param budget
+	 * 		How long the drain may take, in units of {@code unit}.
+	 * @param unit
+	 * 		The unit of {@code budget}.
+	 *
+	 * @return The number of events which were removed.
+	 * @see EventQueueDrainer
+	 */
+	public int drainTo(@NotNull Consumer<? super E> consumer, int maxBatch, long budget, @NotNull TimeUnit unit) {
+		return drainUntil(consumer, maxBatch, System.nanoTime() + unit.toNanos(budget));
+	}
+	/**
+	 * Handles events one at a time until {@link System#nanoTime()} reaches {@code deadline}.
+	 */
+	int drainUntil(@NotNull Consumer<? super E> consumer, int maxBatch, long deadline) {
+		int n = 0;
+		while(n < maxBatch && System.nanoTime() - deadline < 0) {
+			E event = poll();
+			if(event == null) {
+				break;
+			}
+			consumer.accept(event);
+			n++;
+		}
+		return n;
 	}
 	@Listener
 	private void eventFired(@NotNull E event, @NotNull Object target) {
 		if(eventClass.isInstance(event) && targetClass.isInstance(target)) {
-			queue.offer(event);
+			offer(event);
+		}
+	}
+	/**
+	 * Retrieves the number of events which were discarded because the queue was full.
+	 *
+	 * @return The number of discarded events.
+	 */
+	public long getDroppedCount() {
+		lock.lock();
+		try {
+			return dropped;
+		} finally {
+			lock.unlock();
+		}
+	}
+	private void insert(@NotNull E event) {
+		if(count == items.length) {
+			Object[] grown = new Object[items.length * 2];
+			for(int i = 0; i < count; i++) {
+				grown[i] = items[(head + i) % items.length];
+			}
+			items = grown;
+			head = 0;
+		}
+		items[(head + count) % items.length] = event;
+		if(event instanceof CoalescingEvent) {
+			pending.put(new CoalescingKey(null, (CoalescingEvent) event), headSequence + count);
+		}
+		count++;
+		notEmpty.signal();
+	}
+	/**
+	 * Adds an event to the queue directly, applying the overflow policy if the queue is full. Events fired with a
+	 * matching class and target are added this way.
+	 *
+	 * @param event
+	 * 		The event to add.
+	 *
+	 * @return {@code true} if the event was added or replaced a queued event, {@code false} if it was discarded.
+	 */
+	public boolean offer(@NotNull E event) {
+		// The event outlives its dispatch, so it must not be recycled by an EventPool.
+		event.retain();
+		lock.lock();
+		try {
+			if(event instanceof CoalescingEvent && coalesce((CoalescingEvent) event)) {
+				return true;
+			}
+			while(bounded && count == items.length) {
+				switch(policy) {
+					case DROP_NEWEST:
+						dropped++;
+						return false;
+					case DROP_OLDEST:
+						removeFirst();
+						dropped++;
+						break;
+					case COALESCE:
+						if(coalesceByTarget(event)) {
+							return true;
+						}
+						// Nothing to replace, so wait like BLOCK.
+					case BLOCK:
+						if(Thread.currentThread() == drainer) {
+							// Only this thread could make room, so waiting would never end.
+							dropped++;
+							return false;
+						}
+						try {
+							notFull.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							dropped++;
+							return false;
+						}
+						break;
+				}
+			}
+			insert(event);
+			return true;
+		} finally {
+			lock.unlock();
 		}
 	}
 	/**
@@ -44,8 +268,14 @@ public class EventQueue<E extends Event, T> {
 	 * @return The head of this queue, or {@code null} if this queue is empty.
 	 */
 	@Nullable
+	@SuppressWarnings("unchecked")
 	public E peek() {
-		return queue.peek();
+		lock.lock();
+		try {
+			return count == 0 ? null : (E) items[head];
+		} finally {
+			lock.unlock();
+		}
 	}
 	/**
 	 * Retrieves and removes the first event in the queue, or returns {@code null} if this queue is empty.
@@ -54,6 +284,167 @@ public class EventQueue<E extends Event, T> {
 	 */
 	@Nullable
 	public E poll() {
-		return queue.poll();
+		lock.lock();
+		try {
+			if(count == 0) {
+				return null;
+			}
+			drainer = Thread.currentThread();
+			E event = removeFirst();
+			notFull.signal();
+			return event;
+		} finally {
+			lock.unlock();
+		}
+	}
+	/**
+	 * Retrieves and removes the first event in the queue, waiting up to the specified time for one to arrive.
+	 *
+	 * @param timeout
+	 * 		How long to wait, in units of {@code unit}.
+	 * @param unit
+	 * 		The unit of {@code timeout}.
+	 *
+	 * @return The head of this queue, or {@code null} if no event arrived in time.
+	 * @throws InterruptedException
+	 * 		If the thread is interrupted while waiting.
+	 */
+	@Nullable
+	public E poll(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while(count == 0) {
+				if(nanos <= 0) {
+					return null;
+				}
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			drainer = Thread.currentThread();
+			E event = removeFirst();
+			notFull.signal();
+			return event;
+		} finally {
+			lock.unlock();
+		}
+	}
+	@NotNull
+	@SuppressWarnings("unchecked")
+	private E removeFirst() {
+		E event = (E) items[head];
+		items[head] = null;
+		if(event instanceof CoalescingEvent) {
+			pending.remove(new CoalescingKey(null, (CoalescingEvent) event), headSequence);
+		}
+		head = (head + 1) % items.length;
+		headSequence++;
+		count--;
+		return event;
+	}
+	/**
+	 * Replaces the queued event with the provided sequence number, which counts every event ever queued.
+	 */
+	private void replace(long sequence, @NotNull E event) {
+		items[(int) ((head + sequence - headSequence) % items.length)] = event;
+		if(event instanceof CoalescingEvent) {
+			pending.put(new CoalescingKey(null, (CoalescingEvent) event), sequence);
+		}
+	}
+	/**
+	 * Retrieves the number of events in the queue.
+	 *
+	 * @return The number of events.
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+	/**
+	 * Retrieves and removes the first event in the queue, waiting for one to arrive if the queue is empty.
+	 *
+	 * @return The head of this queue.
+	 * @throws InterruptedException
+	 * 		If the thread is interrupted while waiting.
+	 */
+	@NotNull
+	public E take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while(count == 0) {
+				notEmpty.await();
+			}
+			drainer = Thread.currentThread();
+			E event = removeFirst();
+			notFull.signal();
+			return event;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Determines what a bounded {@link EventQueue} does with an event that arrives while it is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * The firing thread waits until there is room. If it is interrupted while waiting, the event is discarded. The
+		 * event is also discarded if the firing thread is the one which last removed events from the queue, such as a
+		 * consumer firing events from inside a drain, since it would otherwise wait for itself forever.
+		 */
+		BLOCK,
+		/**
+		 * The oldest queued event is discarded to make room.
+		 */
+		DROP_OLDEST,
+		/**
+		 * The new event is discarded.
+		 */
+		DROP_NEWEST,
+		/**
+		 * The new event replaces the most recent queued event with the same class and target. If there is none, the
+		 * firing thread waits as with {@link #BLOCK}.
+		 */
+		COALESCE
+	}
+	
+	private class QueueView extends AbstractQueue<E> {
+		@NotNull
+		@Override
+		public Iterator<E> iterator() {
+			List<E> events = new ArrayList<>();
+			lock.lock();
+			try {
+				for(int i = 0; i < count; i++) {
+					@SuppressWarnings("unchecked")
+					E event = (E) items[(head + i) % items.length];
+					events.add(event);
+				}
+			} finally {
+				lock.unlock();
+			}
+			return Collections.unmodifiableList(events).iterator();
+		}
+		@Override
+		public boolean offer(@NotNull E event) {
+			return EventQueue.this.offer(event);
+		}
+		@Nullable
+		@Override
+		public E peek() {
+			return EventQueue.this.peek();
+		}
+		@Nullable
+		@Override
+		public E poll() {
+			return EventQueue.this.poll();
+		}
+		@Override
+		public int size() {
+			return EventQueue.this.size();
+		}
 	}
 }
@@ -0,0 +1,147 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Drains several {@link EventQueue}s within a shared time budget, so that a main loop can handle its events without
+ * letting a burst on one queue delay everything else. Queues are served in weighted round-robin order: each round, a
+ * queue handles up to its weight in events before the next queue is served. Each drain starts one queue further along
+ * than the last, so a budget which runs out part way through a round does not always favour the same queue.
+ * <p>
+ * A drainer is meant to be used by a single thread, typically the one running the main loop. The queues themselves may
+ * be fired into from any thread.
+ */
+public class EventQueueDrainer {
+	private final List<Lane<?>> lanes = new ArrayList<>();
+	private int start = 0;
+	/**
+	 * Adds a queue which handles one event per round.
+	 *
+	 * @param queue
+	 * 		The queue to drain.
+	 * @param consumer
+	 * 		The action to perform on each event.
+	 * @param <E>
+	 * 		The type of the queue's events.
+	 */
+	public <E extends Event> void add(@NotNull EventQueue<E, ?> queue, @NotNull Consumer<? super E> consumer) {
+		add(queue, consumer, 1);
+	}
+	/**
+	 * Adds a queue.
+	 *
+	 * @param queue
+	 * 		The queue to drain.
+	 * @param consumer
+	 * 		The action to perform on each event.
+	 * @param weight
+	 * 		The number of events the queue may handle each round, relative to the other queues.
+	 * @param <E>
+	 * 		The type of the queue's events.
+	 */
+	public <E extends Event> void add(@NotNull EventQueue<E, ?> queue, @NotNull Consumer<? super E> consumer, int weight) {
+		if(weight < 1) {
+			throw new IllegalArgumentException("The weight must be positive.");
+		}
+		lanes.add(new Lane<>(queue, consumer, weight));
+	}
+	/**
+	 * Handles queued events until every queue is empty, {@code maxEvents} events have been handled or the time budget
+	 * has been spent. The budget is checked before each event, so the drain overruns it by at most the time taken to
+	 * handle one event.
+	 *
+	 * @param budget
+	 * 		How long the drain may take, in units of {@code unit}.
+	 * @param unit
+	 * 		The unit of {@code budget}.
+	 * @param maxEvents
+	 * 		The maximum number of events to handle.
+	 *
+	 * @return What was handled and what is left.
+	 */
+	@NotNull
+	public Result drain(long budget, @NotNull TimeUnit unit, int maxEvents) {
+		long deadline = System.nanoTime() + unit.toNanos(budget);
+		int handled = 0;
+		int size = lanes.size();
+		boolean progress = true;
+		while(progress && handled < maxEvents && System.nanoTime() - deadline < 0) {
+			progress = false;
+			for(int i = 0; i < size && handled < maxEvents; i++) {
+				Lane<?> lane = lanes.get((start + i) % size);
+				int n = lane.drain(Math.min(lane.weight, maxEvents - handled), deadline);
+				handled += n;
+				progress |= n > 0;
+			}
+		}
+		if(size > 0) {
+			start = (start + 1) % size;
+		}
+		int pending = 0;
+		for(Lane<?> lane : lanes) {
+			pending += lane.queue.size();
+		}
+		return new Result(handled, pending);
+	}
+	/**
+	 * Stops draining a queue.
+	 *
+	 * @param queue
+	 * 		The queue to remove.
+	 */
+	public void remove(@NotNull EventQueue<?, ?> queue) {
+		lanes.removeIf(lane -> lane.queue == queue);
+		start = 0;
+	}
+	
+	/**
+	 * The outcome of one {@link #drain(long, TimeUnit, int)}.
+	 */
+	public static final class Result {
+		private final int handled;
+		private final int pending;
+		Result(int handled, int pending) {
+			this.handled = handled;
+			this.pending = pending;
+		}
+		/**
+		 * Retrieves the number of events which were handled.
+		 *
+		 * @return The number of handled events.
+		 */
+		public int getHandled() {
+			return handled;
+		}
+		/**
+		 * Retrieves the number of events left in the queues when the drain finished.
+		 *
+		 * @return The number of pending events.
+		 */
+		public int getPending() {
+			return pending;
+		}
+		@Override
+		public String toString() {
+			return handled + " handled, " + pending + " pending";
+		}
+	}
+	
+	private static final class Lane<E extends Event> {
+		private final EventQueue<E, ?> queue;
+		private final Consumer<? super E> consumer;
+		private final int weight;
+		Lane(@NotNull EventQueue<E, ?> queue, @NotNull Consumer<? super E> consumer, int weight) {
+			this.queue = queue;
+			this.consumer = consumer;
+			this.weight = weight;
+		}
+		int drain(int max, long deadline) {
+			return queue.drainUntil(consumer, max, deadline);
+		}
+	}
+}
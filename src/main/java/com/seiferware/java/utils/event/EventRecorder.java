@@ -0,0 +1,233 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Records fired events to a file, so that a real event stream can be replayed later with {@link EventReplayer}. A
+ * recorder is installed with {@link Event#setRecorder(EventRecorder)}, after which every fired event of a class that
+ * has been {@link #register(Class, EventCodec) registered} is recorded. Events of other classes are ignored.
+ * <p>
+ * Each record holds a numeric id for the event's class, the time since the recorder was created, a numeric id for the
+ * target, and the data written by the class's {@link EventCodec}. Targets are identified by ids chosen by the
+ * application, which the replayer maps back to objects. The file is memory-mapped in chunks and appended to in place,
+ * so recording an event is a short synchronized copy with no system calls, except when a new chunk is mapped.
+ * <p>
+ * The length of each record is written after the rest of it, so a recording cut short by a crash ends cleanly at the
+ * last complete record.
+ */
+public class EventRecorder implements Closeable {
+	static final int MAGIC = 0x53574A45;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	private static final int DEFAULT_CHUNK_SIZE = 16 << 20;
+	private static final int DEFAULT_MAX_RECORD_SIZE = 64 << 10;
+	private final FileChannel channel;
+	private final ToLongFunction<Object> targetIds;
+	private final ConcurrentMap<Class<?>, Type> types = new ConcurrentHashMap<>();
+	private final int chunkSize;
+	private final int maxRecordSize;
+	private final long startNanos;
+	private MappedByteBuffer buffer;
+	private ByteBuffer view;
+	private long bufferStart = 0;
+	private short nextType = 0;
+	private long recorded = 0;
+	private long dropped = 0;
+	/**
+	 * Creates a recorder which maps the file 16 MB at a time and accepts records of up to 64 KB.
+	 *
+	 * @param file
+	 * 		The file to record to. It is replaced if it exists.
+	 * @param targetIds
+	 * 		Provides the id of each target, which must identify the same object when the recording is replayed.
+	 *
+	 * @throws IOException
+	 * 		If the file cannot be created.
+	 */
+	public EventRecorder(@NotNull File file, @NotNull ToLongFunction<Object> targetIds) throws IOException {
+		this(file, targetIds, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_RECORD_SIZE);
+	}
+	/**
+	 * Creates a recorder.
+	 *
+	 * @param file
+	 * 		The file to record to. It is replaced if it exists.
+	 * @param targetIds
+	 * 		Provides the id of each target, which must identify the same object when the recording is replayed.
+	 * @param chunkSize
+	 * 		The number of bytes of the file to map at a time.
+	 * @param maxRecordSize
+	 * 		The largest record, in bytes, including the 18 bytes of the class id, time and target id. Events whose
+	 * 		records would be larger are dropped.
+	 *
+	 * @throws IOException
+	 * 		If the file cannot be created.
+	 */
+	public EventRecorder(@NotNull File file, @NotNull ToLongFunction<Object> targetIds, int chunkSize, int maxRecordSize) throws IOException {
+		if(maxRecordSize < 64 || chunkSize < maxRecordSize + HEADER_SIZE) {
+			throw new IllegalArgumentException("The chunk must be larger than the maximum record size, which must be at least 64 bytes.");
+		}
+		this.targetIds = targetIds;
+		this.chunkSize = chunkSize;
+		this.maxRecordSize = maxRecordSize;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, chunkSize);
+		this.view = buffer.duplicate();
+		buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+		this.startNanos = System.nanoTime();
+	}
+	/**
+	 * Stops recording and trims the file to the recorded events. Events fired afterwards are ignored, but the recorder
+	 * should also be uninstalled with {@link Event#setRecorder(EventRecorder)}.
+	 *
+	 * @throws IOException
+	 * 		If an I/O error occurs.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if(buffer == null) {
+			return;
+		}
+		long end = bufferStart + buffer.position();
+		buffer.force();
+		buffer = null;
+		view = null;
+		try {
+			channel.truncate(end);
+		} catch (IOException ignored) {
+			// Some platforms cannot truncate a file while it is mapped. The zeroed tail reads as the end of the recording.
+		}
+		channel.close();
+	}
+	/**
+	 * Makes sure the mapped chunk has at least {@code bytes} free, mapping a new chunk at the end of the records if
+	 * not.
+	 */
+	private void ensureRoom(int bytes) throws IOException {
+		if(buffer.remaining() < bytes) {
+			long end = bufferStart + buffer.position();
+			buffer.force();
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, end, Math.max(chunkSize, bytes));
+			view = buffer.duplicate();
+			bufferStart = end;
+		}
+	}
+	/**
+	 * Retrieves the number of events which were not recorded because their records were too large, or because their
+	 * codec or the target id function failed.
+	 *
+	 * @return The number of dropped events.
+	 */
+	public synchronized long getDroppedCount() {
+		return dropped;
+	}
+	/**
+	 * Retrieves the number of events which have been recorded.
+	 *
+	 * @return The number of recorded events.
+	 */
+	public synchronized long getRecordedCount() {
+		return recorded;
+	}
+	/**
+	 * Records an event, if a codec has been registered for its class.
+	 */
+	void record(@NotNull Event event) {
+		Type type = types.get(event.getClass());
+		if(type == null) {
+			return;
+		}
+		long time = System.nanoTime() - startNanos;
+		long targetId;
+		try {
+			targetId = targetIds.applyAsLong(event.getTarget());
+		} catch (RuntimeException e) {
+			// A faulty recorder must not keep the event from reaching its listeners.
+			synchronized(this) {
+				dropped++;
+			}
+			return;
+		}
+		synchronized(this) {
+			if(buffer == null) {
+				return;
+			}
+			try {
+				ensureRoom(4 + maxRecordSize);
+			} catch (IOException e) {
+				dropped++;
+				return;
+			}
+			int start = buffer.position();
+			// The codec writes to a view which ends at the maximum record size, so larger events overflow it.
+			view.limit(start + 4 + maxRecordSize).position(start + 4);
+			try {
+				view.putShort(type.id).putLong(time).putLong(targetId);
+				type.codec.encode(event, view);
+			} catch (RuntimeException e) {
+				// Usually a BufferOverflowException from a record which is too large, but any failure of the codec is
+				// counted the same way.
+				dropped++;
+				return;
+			}
+			buffer.position(view.position());
+			buffer.putInt(start, view.position() - start - 4);
+			recorded++;
+		}
+	}
+	/**
+	 * Starts recording events of a class. Subclasses must be registered separately.
+	 *
+	 * @param eventClass
+	 * 		The exact class of the events to record.
+	 * @param codec
+	 * 		Writes the data of each event.
+	 * @param <E>
+	 * 		The class of the events.
+	 *
+	 * @throws IOException
+	 * 		If the class cannot be added to the recording.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <E extends Event> void register(@NotNull Class<E> eventClass, @NotNull EventCodec<? super E> codec) throws IOException {
+		if(buffer == null) {
+			throw new IOException("The recorder has been closed.");
+		}
+		if(types.containsKey(eventClass)) {
+			throw new IllegalStateException("A codec has already been registered for " + eventClass.getName() + ".");
+		}
+		if(nextType == Short.MAX_VALUE) {
+			throw new IllegalStateException("Too many event classes have been registered.");
+		}
+		byte[] name = eventClass.getName().getBytes(StandardCharsets.UTF_8);
+		ensureRoom(8 + name.length);
+		short id = nextType++;
+		int start = buffer.position();
+		// Class definitions are told apart from events by a negative id.
+		buffer.position(start + 4);
+		buffer.putShort((short) ~id).putShort((short) name.length).put(name);
+		buffer.putInt(start, 4 + name.length);
+		types.put(eventClass, new Type(id, (EventCodec<Event>) codec));
+	}
+	
+	private static final class Type {
+		private final short id;
+		private final EventCodec<Event> codec;
+		Type(short id, @NotNull EventCodec<Event> codec) {
+			this.id = id;
+			this.codec = codec;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * Fires the events in a file written by {@link EventRecorder}, either as fast as possible or with their original
+ * spacing, optionally sped up. Each class of event to replay must be registered with the same codec it was recorded
+ * with; events of other classes are skipped.
+ * <p>
+ * The file is read through a memory-mapped window, so replaying does not copy it onto the heap. A replayer is meant to
+ * be used by one thread at a time.
+ */
+public class EventReplayer implements Closeable {
+	private static final int WINDOW_SIZE = 16 << 20;
+	private final FileChannel channel;
+	private final long startTime;
+	private final Map<String, EventCodec<?>> codecs = new HashMap<>();
+	/**
+	 * Opens a recording.
+	 *
+	 * @param file
+	 * 		The file written by {@link EventRecorder}.
+	 *
+	 * @throws IOException
+	 * 		If the file cannot be opened or is not a recording.
+	 */
+	public EventReplayer(@NotNull File file) throws IOException {
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(EventRecorder.HEADER_SIZE);
+			while(header.hasRemaining() && channel.read(header) >= 0) {
+			}
+			header.flip();
+			if(header.remaining() < EventRecorder.HEADER_SIZE || header.getInt() != EventRecorder.MAGIC || header.getInt() != EventRecorder.VERSION) {
+				throw new IOException("The file is not an event recording.");
+			}
+			this.startTime = header.getLong();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	/**
+	 * Retrieves the time at which the recording started.
+	 *
+	 * @return The time, in milliseconds since the epoch.
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+	@NotNull
+	private MappedByteBuffer map(long position, long length) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Math.max(length, WINDOW_SIZE), channel.size() - position));
+	}
+	/**
+	 * Starts replaying events of a class.
+	 *
+	 * @param eventClass
+	 * 		The exact class of the events, which must have the same name as when they were recorded.
+	 * @param codec
+	 * 		Creates each event from its recorded data.
+	 * @param <E>
+	 * 		The class of the events.
+	 */
+	public <E extends Event> void register(@NotNull Class<E> eventClass, @NotNull EventCodec<E> codec) {
+		codecs.put(eventClass.getName(), codec);
+	}
+	/**
+	 * Fires the recorded events on the calling thread, in the order they were recorded. The first event is fired
+	 * immediately, and the rest at their recorded spacing from it.
+	 *
+	 * @param targets
+	 * 		Finds the target with a recorded id. Events whose target it returns {@code null} for are skipped.
+	 * @param speed
+	 * 		How much faster than recorded to replay the events, for example 1 for their original spacing or 10 for ten
+	 * 		times as fast. Zero or less fires them without waiting.
+	 *
+	 * @return The number of events fired.
+	 * @throws IOException
+	 * 		If an I/O error occurs.
+	 */
+	public long replay(@NotNull LongFunction<Object> targets, double speed) throws IOException {
+		EventCodec<?>[] types = new EventCodec<?>[16];
+		long position = EventRecorder.HEADER_SIZE;
+		long size = channel.size();
+		MappedByteBuffer window = map(position, 0);
+		long begin = 0;
+		long origin = -1;
+		long fired = 0;
+		while(true) {
+			if(window.remaining() < 4) {
+				if(size - position < 4) {
+					break;
+				}
+				window = map(position, 4);
+			}
+			int length = window.getInt(window.position());
+			if(length <= 0) {
+				break;
+			}
+			if(window.remaining() < 4 + length) {
+				if(size - position < 4 + length) {
+					break;
+				}
+				window = map(position, 4 + length);
+			}
+			window.position(window.position() + 4);
+			ByteBuffer record = window.slice();
+			record.limit(length);
+			window.position(window.position() + length);
+			position += 4 + length;
+			short type = record.getShort();
+			if(type < 0) {
+				byte[] name = new byte[record.getShort()];
+				record.get(name);
+				int id = ~type;
+				if(id >= types.length) {
+					types = Arrays.copyOf(types, Math.max(types.length * 2, id + 1));
+				}
+				types[id] = codecs.get(new String(name, StandardCharsets.UTF_8));
+				continue;
+			}
+			long time = record.getLong();
+			long targetId = record.getLong();
+			EventCodec<?> codec = type < types.length ? types[type] : null;
+			if(codec == null) {
+				continue;
+			}
+			Object target = targets.apply(targetId);
+			if(target == null) {
+				continue;
+			}
+			if(origin < 0) {
+				// The spacing is measured from the first event, so the time before it was recorded is not waited out.
+				origin = time;
+				begin = System.nanoTime();
+			}
+			if(speed > 0) {
+				long due = begin + (long) ((time - origin) / speed);
+				for(long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+					LockSupport.parkNanos(wait);
+				}
+			}
+			codec.decode(target, record).fire();
+			fired++;
+		}
+		return fired;
+	}
+}
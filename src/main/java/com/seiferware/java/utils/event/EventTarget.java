@@ -4,4 +4,15 @@ import org.jetbrains.annotations.Nullable;
 
 public interface EventTarget {
 	@Nullable Object getBubbleParent();
+	/**
+	 * Whether the chain of bubble parents above this target never changes. Events fired on stable targets look up the
+	 * ancestors which have listeners in a cache instead of walking the chain each time. Targets which can be moved to
+	 * a different parent, directly or through one of their ancestors, must not return {@code true}.
+	 *
+	 * @return {@code true} if the result of {@link #getBubbleParent()}, for this target and each of its ancestors,
+	 * never changes, {@code false} otherwise.
+	 */
+	default boolean isBubbleChainStable() {
+		return false;
+	}
 }
@@ -0,0 +1,24 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives exceptions thrown by {@link Listener} methods while an event is fired. Firing continues with the remaining
+ * listeners after the handler returns, unless the handler itself throws.
+ *
+ * @see Event#setExceptionHandler(ListenerExceptionHandler)
+ */
+@FunctionalInterface
+public interface ListenerExceptionHandler {
+	/**
+	 * Called when a listener method throws an exception.
+	 *
+	 * @param event
+	 * 		The event that was being fired.
+	 * @param listener
+	 * 		The listener whose method threw the exception.
+	 * @param exception
+	 * 		The exception thrown by the listener method.
+	 */
+	void handle(@NotNull Event event, @NotNull Object listener, @NotNull Throwable exception);
+}
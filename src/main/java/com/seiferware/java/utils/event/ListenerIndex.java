@@ -0,0 +1,72 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Lists the {@link Listener} methods declared by a class, so that {@link Event#addListener(Object, Object)} does not
+ * have to search the class with reflection. Indexes are generated at compile time by {@link ListenerIndexProcessor}, as
+ * a class named after the binary name of the listener class followed by {@code $ListenerIndex}, in the same package.
+ * Classes without an index are searched with reflection.
+ * <p>
+ * An index lists only the methods declared by its own class. The indexes of superclasses, or reflection for
+ * superclasses without one, provide the rest.
+ */
+public interface ListenerIndex {
+	/**
+	 * The suffix appended to the binary name of a listener class to form the name of its index.
+	 */
+	String SUFFIX = "$ListenerIndex";
+	/**
+	 * Retrieves the listener methods declared by the indexed class.
+	 *
+	 * @return The listener methods.
+	 */
+	@NotNull
+	Entry[] getEntries();
+	
+	/**
+	 * A single listener method.
+	 */
+	final class Entry {
+		private final String name;
+		private final Class<? extends Event> eventType;
+		private final Class<?> targetType;
+		private final ListenerInvoker invoker;
+		/**
+		 * Describes a listener method.
+		 *
+		 * @param name
+		 * 		The name of the method.
+		 * @param eventType
+		 * 		The type of the method's first parameter.
+		 * @param targetType
+		 * 		The type of the method's second parameter.
+		 * @param invoker
+		 * 		Calls the method directly, or {@code null} if the method cannot be called from outside its class, in
+		 * 		which case it is looked up and bound when the class is first registered.
+		 */
+		public Entry(@NotNull String name, @NotNull Class<? extends Event> eventType, @NotNull Class<?> targetType, @Nullable ListenerInvoker invoker) {
+			this.name = name;
+			this.eventType = eventType;
+			this.targetType = targetType;
+			this.invoker = invoker;
+		}
+		@NotNull
+		public Class<? extends Event> getEventType() {
+			return eventType;
+		}
+		@Nullable
+		public ListenerInvoker getInvoker() {
+			return invoker;
+		}
+		@NotNull
+		public String getName() {
+			return name;
+		}
+		@NotNull
+		public Class<?> getTargetType() {
+			return targetType;
+		}
+	}
+}
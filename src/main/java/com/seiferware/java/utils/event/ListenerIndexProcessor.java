@@ -0,0 +1,136 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@link ListenerIndex} for each class which declares {@link Listener} methods. The processor is
+ * registered as a service, so it runs whenever this library is on the compiler's classpath.
+ * <p>
+ * Listener methods which are not private or static are called directly by the generated invokers. Other methods are
+ * listed by name and bound when the class is first registered. Classes that the generated code cannot refer to, such
+ * as private nested classes, or classes whose listener methods take such types, get no index and are searched with
+ * reflection instead.
+ */
+@SupportedAnnotationTypes("com.seiferware.java.utils.event.Listener")
+public class ListenerIndexProcessor extends AbstractProcessor {
+	private boolean canReference(@NotNull TypeElement type, @NotNull PackageElement from) {
+		Elements elements = processingEnv.getElementUtils();
+		for(Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+			TypeElement te = (TypeElement) e;
+			if(te.getNestingKind() != NestingKind.TOP_LEVEL && te.getNestingKind() != NestingKind.MEMBER) {
+				return false;
+			}
+			Set<Modifier> modifiers = te.getModifiers();
+			if(modifiers.contains(Modifier.PRIVATE)) {
+				return false;
+			}
+			if(!modifiers.contains(Modifier.PUBLIC) && !elements.getPackageOf(te).equals(from)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Map<TypeElement, List<ExecutableElement>> byClass = new LinkedHashMap<>();
+		for(Element e : roundEnv.getElementsAnnotatedWith(Listener.class)) {
+			if(e.getKind() == ElementKind.METHOD && e.getEnclosingElement() instanceof TypeElement) {
+				byClass.computeIfAbsent((TypeElement) e.getEnclosingElement(), k -> new ArrayList<>()).add((ExecutableElement) e);
+			}
+		}
+		for(Map.Entry<TypeElement, List<ExecutableElement>> entry : byClass.entrySet()) {
+			try {
+				write(entry.getKey(), entry.getValue());
+			} catch (IOException e) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not write the listener index: " + e, entry.getKey());
+			}
+		}
+		return false;
+	}
+	/**
+	 * Renders the erased type of a listener method's parameter, or returns {@code null} if the generated code cannot
+	 * refer to it.
+	 */
+	private String typeName(@NotNull TypeMirror type, @NotNull PackageElement from) {
+		TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+		if(erased.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		TypeElement element = (TypeElement) ((DeclaredType) erased).asElement();
+		return canReference(element, from) ? element.getQualifiedName().toString() : null;
+	}
+	private void write(@NotNull TypeElement cls, @NotNull List<ExecutableElement> methods) throws IOException {
+		Elements elements = processingEnv.getElementUtils();
+		Types types = processingEnv.getTypeUtils();
+		PackageElement pkg = elements.getPackageOf(cls);
+		if(!canReference(cls, pkg)) {
+			return;
+		}
+		TypeMirror eventType = types.erasure(elements.getTypeElement(Event.class.getCanonicalName()).asType());
+		String className = cls.getQualifiedName().toString();
+		List<String> entries = new ArrayList<>();
+		for(ExecutableElement method : methods) {
+			List<? extends VariableElement> params = method.getParameters();
+			if(params.size() != 2 || !types.isAssignable(types.erasure(params.get(0).asType()), eventType)) {
+				continue;
+			}
+			String event = typeName(params.get(0).asType(), pkg);
+			String target = typeName(params.get(1).asType(), pkg);
+			if(event == null || target == null) {
+				return;
+			}
+			String name = method.getSimpleName().toString();
+			String invoker = "null";
+			Set<Modifier> modifiers = method.getModifiers();
+			if(!modifiers.contains(Modifier.PRIVATE) && !modifiers.contains(Modifier.STATIC)) {
+				invoker = "(listener, event, target) -> ((" + className + ") listener)." + name + "((" + event + ") event, (" + target + ") target)";
+			}
+			entries.add("new Entry(\"" + name + "\", " + event + ".class, " + target + ".class, " + invoker + ")");
+		}
+		String binaryName = elements.getBinaryName(cls).toString() + ListenerIndex.SUFFIX;
+		String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+		String simpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+		try (Writer out = processingEnv.getFiler().createSourceFile(binaryName, cls).openWriter()) {
+			if(!packageName.isEmpty()) {
+				out.write("package " + packageName + ";\n\n");
+			}
+			out.write("/**\n * Generated by " + ListenerIndexProcessor.class.getName() + " from {@link " + className + "}.\n */\n");
+			out.write("public final class " + simpleName + " implements " + ListenerIndex.class.getName() + " {\n");
+			out.write("\t@Override\n\tpublic Entry[] getEntries() {\n\t\treturn new Entry[] {\n");
+			for(String entry : entries) {
+				out.write("\t\t\t" + entry + ",\n");
+			}
+			out.write("\t\t};\n\t}\n}\n");
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Calls a single {@link Listener} method. {@link Event} creates one invoker for each listener method when the
+ * listener's class is first registered, so that firing an event is a plain interface call rather than a reflective one.
+ * Invokers are also generated at compile time by {@link ListenerIndexProcessor}.
+ */
+@FunctionalInterface
+public interface ListenerInvoker {
+	/**
+	 * Calls the listener method.
+	 *
+	 * @param listener
+	 * 		The object on which the method is declared.
+	 * @param event
+	 * 		The event being fired.
+	 * @param target
+	 * 		The target of the event.
+	 *
+	 * @throws Throwable
+	 * 		Anything thrown by the listener method.
+	 */
+	void invoke(@NotNull Object listener, @NotNull Event event, @NotNull Object target) throws Throwable;
+}
@@ -0,0 +1,347 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Holds the listeners registered on each event target. The listeners of a target are stored in a {@link Listeners}
+ * object which is replaced, never modified, when a listener is added or removed, so {@link #get(Object)} takes no locks
+ * and the object it returns may be used while other threads change the registry.
+ * <p>
+ * The entries of a {@link Listeners} object are not necessarily the listeners themselves; {@link #listener(Object)}
+ * converts an entry into its listener.
+ */
+abstract class ListenerRegistry {
+	private final AtomicInteger version = new AtomicInteger();
+	/**
+	 * Registers a listener on a target, unless it is already registered there.
+	 */
+	abstract void add(@NotNull Object target, @NotNull Object listener);
+	/**
+	 * Records that listeners were added or removed, after the change has been made.
+	 */
+	void changed() {
+		version.incrementAndGet();
+	}
+	/**
+	 * Calls {@code action} with each target and listener that is still registered.
+	 */
+	abstract void forEach(@NotNull BiConsumer<Object, Object> action);
+	/**
+	 * Retrieves the listeners of a target.
+	 *
+	 * @return The listeners, or {@code null} if the target has none.
+	 */
+	@Nullable
+	abstract Listeners get(@NotNull Object target);
+	/**
+	 * Retrieves a number which changes whenever listeners are added or removed, so that information derived from the
+	 * registry can be cached.
+	 */
+	int getVersion() {
+		return version.get();
+	}
+	/**
+	 * Converts an entry of a {@link Listeners} object into its listener.
+	 *
+	 * @return The listener, or {@code null} if it has been garbage collected.
+	 */
+	@Nullable
+	abstract Object listener(@NotNull Object entry);
+	/**
+	 * Unregisters a listener from a target.
+	 */
+	abstract void remove(@NotNull Object target, @NotNull Object listener);
+
+	/**
+	 * The listeners of one target, with an index from each event class fired on the target, and each class of original
+	 * target those events had, to the listener methods which accept both. The index is filled in the first time such a
+	 * pair is fired on the target, so firing needs no type checks. When a listener is added or removed, the index is
+	 * copied with only that listener's methods added or removed.
+	 */
+	static final class Listeners {
+		private static final Binding[] NO_BINDINGS = new Binding[0];
+		final Object[] entries;
+		private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Binding[]>> byEvent;
+		private Listeners(@NotNull Object[] entries, @NotNull ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Binding[]>> byEvent) {
+			this.entries = entries;
+			this.byEvent = byEvent;
+		}
+		@NotNull
+		private static Binding[] bind(@NotNull Object entry, @NotNull Class<?> eventClass, @NotNull Class<?> targetClass, @NotNull ListenerRegistry registry) {
+			Object listener = registry.listener(entry);
+			if(listener == null) {
+				return NO_BINDINGS;
+			}
+			List<Binding> found = new ArrayList<>();
+			for(Event.MethodReference mr : Event.getListenerMethods(listener.getClass())) {
+				if(mr.getEventParam().isAssignableFrom(eventClass) && mr.getTargetParam().isAssignableFrom(targetClass)) {
+					found.add(new Binding(entry, mr));
+				}
+			}
+			return found.isEmpty() ? NO_BINDINGS : found.toArray(new Binding[found.size()]);
+		}
+		/**
+		 * Retrieves the listener methods which accept events of {@code eventClass} whose original target is of {@code
+		 * targetClass}, in the order their listeners were added.
+		 */
+		@NotNull
+		Binding[] forEvent(@NotNull Class<?> eventClass, @NotNull Class<?> targetClass, @NotNull ListenerRegistry registry) {
+			ConcurrentMap<Class<?>, Binding[]> byTarget = byEvent.get(eventClass);
+			if(byTarget == null) {
+				byTarget = new ConcurrentHashMap<>();
+				ConcurrentMap<Class<?>, Binding[]> existing = byEvent.putIfAbsent(eventClass, byTarget);
+				if(existing != null) {
+					byTarget = existing;
+				}
+			}
+			Binding[] bindings = byTarget.get(targetClass);
+			if(bindings == null) {
+				List<Binding> found = new ArrayList<>();
+				for(Object entry : entries) {
+					Collections.addAll(found, bind(entry, eventClass, targetClass, registry));
+				}
+				bindings = found.isEmpty() ? NO_BINDINGS : found.toArray(new Binding[found.size()]);
+				Binding[] existing = byTarget.putIfAbsent(targetClass, bindings);
+				if(existing != null) {
+					bindings = existing;
+				}
+			}
+			return bindings;
+		}
+		@NotNull
+		static Listeners of(@NotNull Object entry) {
+			return new Listeners(new Object[] {entry}, new ConcurrentHashMap<>());
+		}
+		/**
+		 * Copies the listeners with an entry added at the end.
+		 */
+		@NotNull
+		Listeners with(@NotNull Object entry, @NotNull ListenerRegistry registry) {
+			Object[] next = Arrays.copyOf(entries, entries.length + 1);
+			next[entries.length] = entry;
+			ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Binding[]>> index = new ConcurrentHashMap<>();
+			byEvent.forEach((eventClass, byTarget) -> {
+				ConcurrentMap<Class<?>, Binding[]> copy = new ConcurrentHashMap<>();
+				byTarget.forEach((targetClass, current) -> {
+					Binding[] added = bind(entry, eventClass, targetClass, registry);
+					if(added.length == 0) {
+						copy.put(targetClass, current);
+					} else {
+						Binding[] bindings = Arrays.copyOf(current, current.length + added.length);
+						System.arraycopy(added, 0, bindings, current.length, added.length);
+						copy.put(targetClass, bindings);
+					}
+				});
+				index.put(eventClass, copy);
+			});
+			return new Listeners(next, index);
+		}
+		/**
+		 * Copies the listeners without the entry at {@code position}.
+		 *
+		 * @return The new listeners, or {@code null} if there would be none.
+		 */
+		@Nullable
+		Listeners without(int position) {
+			if(entries.length == 1) {
+				return null;
+			}
+			Object removed = entries[position];
+			Object[] next = new Object[entries.length - 1];
+			System.arraycopy(entries, 0, next, 0, position);
+			System.arraycopy(entries, position + 1, next, position, next.length - position);
+			ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Binding[]>> index = new ConcurrentHashMap<>();
+			byEvent.forEach((eventClass, byTarget) -> {
+				ConcurrentMap<Class<?>, Binding[]> copy = new ConcurrentHashMap<>();
+				byTarget.forEach((targetClass, current) -> {
+					List<Binding> kept = new ArrayList<>();
+					for(Binding b : current) {
+						if(b.entry != removed) {
+							kept.add(b);
+						}
+					}
+					copy.put(targetClass, kept.size() == current.length ? current : kept.toArray(new Binding[kept.size()]));
+				});
+				index.put(eventClass, copy);
+			});
+			return new Listeners(next, index);
+		}
+	}
+
+	/**
+	 * A listener method of a registered listener.
+	 */
+	static final class Binding {
+		final Object entry;
+		final ListenerInvoker invoker;
+		final Event.MethodReference method;
+		Binding(@NotNull Object entry, @NotNull Event.MethodReference method) {
+			this.entry = entry;
+			this.invoker = method.getInvoker();
+			this.method = method;
+		}
+	}
+
+	/**
+	 * Holds targets and listeners with strong references, so they stay registered until they are removed.
+	 */
+	static final class Strong extends ListenerRegistry {
+		private final ConcurrentMap<Object, Listeners> listeners = new ConcurrentHashMap<>();
+		@Override
+		void add(@NotNull Object target, @NotNull Object listener) {
+			listeners.compute(target, (key, current) -> {
+				if(current == null) {
+					return Listeners.of(listener);
+				}
+				for(Object o : current.entries) {
+					if(o.equals(listener)) {
+						return current;
+					}
+				}
+				return current.with(listener, this);
+			});
+			changed();
+		}
+		@Override
+		void forEach(@NotNull BiConsumer<Object, Object> action) {
+			listeners.forEach((target, current) -> {
+				for(Object listener : current.entries) {
+					action.accept(target, listener);
+				}
+			});
+		}
+		@Nullable
+		@Override
+		Listeners get(@NotNull Object target) {
+			return listeners.get(target);
+		}
+		@Nullable
+		@Override
+		Object listener(@NotNull Object entry) {
+			return entry;
+		}
+		@Override
+		void remove(@NotNull Object target, @NotNull Object listener) {
+			listeners.computeIfPresent(target, (key, current) -> {
+				for(int i = 0; i < current.entries.length; i++) {
+					if(current.entries[i].equals(listener)) {
+						return current.without(i);
+					}
+				}
+				return current;
+			});
+			changed();
+		}
+	}
+
+	/**
+	 * Holds targets and listeners with weak references. A target's entry is removed once the target has been garbage
+	 * collected, and a listener's entry once the listener has. Collected references are purged from a {@link
+	 * ReferenceQueue} whenever the registry is used, so its size follows the number of live registrations.
+	 * <p>
+	 * Because listeners are held weakly, they must be kept reachable by something other than the registry for as long
+	 * as they should receive events. Listeners which refer to their targets do not keep the targets registered.
+	 */
+	static final class Weak extends ListenerRegistry {
+		private final ConcurrentMap<Object, Listeners> listeners = new ConcurrentHashMap<>();
+		private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+		@Override
+		void add(@NotNull Object target, @NotNull Object listener) {
+			purge();
+			WeakKey key = new WeakKey(target, queue);
+			listeners.compute(key, (ignored, current) -> {
+				// The key is only used to find the entry while the target is alive. Once the target has been collected, the
+				// key which is in the map is queued as well and removes the whole entry.
+				if(current == null) {
+					return Listeners.of(new ListenerReference(listener, key, queue));
+				}
+				for(Object o : current.entries) {
+					if(listener.equals(((ListenerReference) o).get())) {
+						return current;
+					}
+				}
+				return current.with(new ListenerReference(listener, key, queue), this);
+			});
+			changed();
+		}
+		@Override
+		void forEach(@NotNull BiConsumer<Object, Object> action) {
+			listeners.forEach((key, current) -> {
+				Object target = ((WeakKey) key).get();
+				for(Object entry : current.entries) {
+					Object listener = ((ListenerReference) entry).get();
+					if(target != null && listener != null) {
+						action.accept(target, listener);
+					}
+				}
+			});
+		}
+		@Nullable
+		@Override
+		Listeners get(@NotNull Object target) {
+			purge();
+			return listeners.get(new WeakKey.Lookup(target));
+		}
+		@Nullable
+		@Override
+		Object listener(@NotNull Object entry) {
+			return ((ListenerReference) entry).get();
+		}
+		private void purge() {
+			Reference<?> ref = queue.poll();
+			if(ref == null) {
+				return;
+			}
+			for(; ref != null; ref = queue.poll()) {
+				if(ref instanceof WeakKey) {
+					listeners.remove(ref);
+				} else {
+					ListenerReference dead = (ListenerReference) ref;
+					listeners.computeIfPresent(dead.key, (key, current) -> {
+						for(int i = 0; i < current.entries.length; i++) {
+							if(current.entries[i] == dead) {
+								return current.without(i);
+							}
+						}
+						return current;
+					});
+				}
+			}
+			changed();
+		}
+		@Override
+		void remove(@NotNull Object target, @NotNull Object listener) {
+			purge();
+			listeners.computeIfPresent(new WeakKey.Lookup(target), (key, current) -> {
+				for(int i = 0; i < current.entries.length; i++) {
+					if(listener.equals(((ListenerReference) current.entries[i]).get())) {
+						return current.without(i);
+					}
+				}
+				return current;
+			});
+			changed();
+		}
+	}
+
+	private static final class ListenerReference extends WeakReference<Object> {
+		private final WeakKey key;
+		ListenerReference(@NotNull Object listener, @NotNull WeakKey key, @NotNull ReferenceQueue<Object> queue) {
+			super(listener, queue);
+			this.key = key;
+		}
+	}
+}
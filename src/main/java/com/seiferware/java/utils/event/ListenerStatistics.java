@@ -0,0 +1,119 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The measurements a {@link DispatchMonitor} took of one listener method handling one class of event. Call times are
+ * kept in a histogram with one bucket per power of two nanoseconds, so percentiles are accurate to within a factor of
+ * two.
+ */
+public final class ListenerStatistics {
+	private final String method;
+	private final Class<? extends Event> eventClass;
+	private final long calls;
+	private final long failures;
+	private final long totalNanos;
+	private final long maxNanos;
+	private final long[] histogram;
+	ListenerStatistics(@NotNull String method, @NotNull Class<? extends Event> eventClass, long calls, long failures, long totalNanos, long maxNanos, @NotNull long[] histogram) {
+		this.method = method;
+		this.eventClass = eventClass;
+		this.calls = calls;
+		this.failures = failures;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+		this.histogram = histogram;
+	}
+	/**
+	 * Retrieves the number of times the method was called.
+	 *
+	 * @return The number of calls, including those which threw an exception.
+	 */
+	public long getCalls() {
+		return calls;
+	}
+	/**
+	 * Retrieves the class of the events that were handled.
+	 *
+	 * @return The exact class of the events, which may be a subclass of the method's parameter type.
+	 */
+	@NotNull
+	public Class<? extends Event> getEventClass() {
+		return eventClass;
+	}
+	/**
+	 * Retrieves the number of calls which threw an exception.
+	 *
+	 * @return The number of failed calls.
+	 */
+	public long getFailures() {
+		return failures;
+	}
+	/**
+	 * Retrieves the histogram of call times. Element {@code i} counts the calls which took at least {@code 2^(i-1)} and
+	 * less than {@code 2^i} nanoseconds; element 0 counts calls which took no measurable time.
+	 *
+	 * @return A copy of the histogram, which has 64 elements.
+	 */
+	@NotNull
+	public long[] getHistogram() {
+		return histogram.clone();
+	}
+	/**
+	 * Retrieves the longest call time.
+	 *
+	 * @return The longest call, in nanoseconds.
+	 */
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+	/**
+	 * Retrieves the average call time.
+	 *
+	 * @return The average call, in nanoseconds, or 0 if there were no calls.
+	 */
+	public double getMeanNanos() {
+		return calls == 0 ? 0 : (double) totalNanos / calls;
+	}
+	/**
+	 * Retrieves a description of the listener method, made of its class, name and parameter types.
+	 *
+	 * @return The description, for example {@code com.example.Listener.onEvent(Event, Object)}.
+	 */
+	@NotNull
+	public String getMethod() {
+		return method;
+	}
+	/**
+	 * Estimates a percentile of the call times from the histogram.
+	 *
+	 * @param fraction
+	 * 		The percentile as a fraction, for example {@code 0.99}.
+	 *
+	 * @return An upper bound of the call time, in nanoseconds, which at least {@code fraction} of the calls did not
+	 * exceed, or 0 if there were no calls.
+	 */
+	public long getPercentileNanos(double fraction) {
+		long wanted = (long) Math.ceil(fraction * calls);
+		long seen = 0;
+		for(int i = 0; i < histogram.length; i++) {
+			seen += histogram[i];
+			if(seen >= wanted && seen > 0) {
+				return Math.min(i == 0 ? 0 : (1L << i) - 1, maxNanos);
+			}
+		}
+		return maxNanos;
+	}
+	/**
+	 * Retrieves the total time spent in the method.
+	 *
+	 * @return The sum of all call times, in nanoseconds.
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+	@Override
+	public String toString() {
+		return method + " <- " + eventClass.getName() + ": " + calls + " calls, " + failures + " failures, mean " + (long) getMeanNanos() + "ns, p99 " + getPercentileNanos(0.99) + "ns, max " + maxNanos + "ns";
+	}
+}
@@ -0,0 +1,206 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Atomic and ordered access to a memory-mapped file which is shared with other processes. {@link MappedByteBuffer}
+ * only offers plain reads and writes, which another process may see in any order. On Java 9 and later this uses the
+ * var handles of {@link MethodHandles}{@code .byteBufferViewVarHandle}; on Java 8, whose only way to do it is {@code
+ * sun.misc.Unsafe}, it uses that with the buffer's address. Both are looked up reflectively, so the library compiles
+ * against either. Values are stored in the platform's byte order in both cases, and offsets must be aligned to the size
+ * of the value.
+ */
+final class SharedMemory {
+	private static final MethodHandle GET_INT_VOLATILE;
+	private static final MethodHandle GET_LONG_VOLATILE;
+	private static final MethodHandle PUT_INT_ORDERED;
+	private static final MethodHandle PUT_LONG_ORDERED;
+	private static final MethodHandle COMPARE_AND_SET_LONG;
+	/**
+	 * {@code Unsafe.copyMemory} and {@code Unsafe.setMemory}, or {@code null} if the var handles are used.
+	 */
+	private static final MethodHandle COPY_MEMORY;
+	private static final MethodHandle SET_MEMORY;
+	private static final MethodHandle ADDRESS;
+	private static final long BYTE_ARRAY_OFFSET;
+	static {
+		MethodHandle[] found;
+		long arrayOffset = 0;
+		try {
+			found = findVarHandles();
+		} catch (ReflectiveOperationException noVarHandles) {
+			try {
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				Field f = unsafeClass.getDeclaredField("theUnsafe");
+				f.setAccessible(true);
+				Object unsafe = f.get(null);
+				arrayOffset = (int) unsafeClass.getMethod("arrayBaseOffset", Class.class).invoke(unsafe, byte[].class);
+				found = findUnsafe(unsafeClass, unsafe);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				e.addSuppressed(noVarHandles);
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+		GET_INT_VOLATILE = found[0];
+		GET_LONG_VOLATILE = found[1];
+		PUT_INT_ORDERED = found[2];
+		PUT_LONG_ORDERED = found[3];
+		COMPARE_AND_SET_LONG = found[4];
+		COPY_MEMORY = found[5];
+		SET_MEMORY = found[6];
+		ADDRESS = found[7];
+		BYTE_ARRAY_OFFSET = arrayOffset;
+	}
+	private final MappedByteBuffer buffer;
+	/**
+	 * The object and starting position passed to the handles: the buffer and 0 for var handles, or {@code null} and
+	 * the buffer's address for {@code Unsafe}.
+	 */
+	private final Object base;
+	private final long origin;
+	SharedMemory(@NotNull MappedByteBuffer buffer) {
+		// The buffer is kept so that the mapping is not released while this is in use.
+		this.buffer = buffer;
+		if(ADDRESS == null) {
+			this.base = buffer;
+			this.origin = 0;
+		} else {
+			this.base = null;
+			try {
+				this.origin = (long) ADDRESS.invokeExact((Object) buffer);
+			} catch (Throwable e) {
+				throw failure(e);
+			}
+		}
+	}
+	boolean compareAndSetLong(int offset, long expected, long value) {
+		try {
+			return (boolean) COMPARE_AND_SET_LONG.invokeExact(base, origin + offset, expected, value);
+		} catch (Throwable e) {
+			throw failure(e);
+		}
+	}
+	void copyFrom(@NotNull byte[] src, int length, int offset) {
+		if(COPY_MEMORY == null) {
+			// Plain writes are enough, since the record is published by a later ordered write.
+			for(int i = 0; i < length; i++) {
+				buffer.put(offset + i, src[i]);
+			}
+			return;
+		}
+		try {
+			COPY_MEMORY.invokeExact((Object) src, BYTE_ARRAY_OFFSET, base, origin + offset, (long) length);
+		} catch (Throwable e) {
+			throw failure(e);
+		}
+	}
+	@NotNull
+	private static RuntimeException failure(@NotNull Throwable e) {
+		if(e instanceof Error) {
+			throw (Error) e;
+		}
+		return e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException(e);
+	}
+	/**
+	 * Looks up the {@code Unsafe} methods, bound to the instance, and the address of a direct buffer.
+	 */
+	@NotNull
+	private static MethodHandle[] findUnsafe(@NotNull Class<?> unsafeClass, @NotNull Object unsafe) throws ReflectiveOperationException {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle[] found = new MethodHandle[8];
+		found[0] = lookup.unreflect(unsafeClass.getMethod("getIntVolatile", Object.class, long.class)).bindTo(unsafe);
+		found[1] = lookup.unreflect(unsafeClass.getMethod("getLongVolatile", Object.class, long.class)).bindTo(unsafe);
+		found[2] = lookup.unreflect(unsafeClass.getMethod("putOrderedInt", Object.class, long.class, int.class)).bindTo(unsafe);
+		found[3] = lookup.unreflect(unsafeClass.getMethod("putOrderedLong", Object.class, long.class, long.class)).bindTo(unsafe);
+		found[4] = lookup.unreflect(unsafeClass.getMethod("compareAndSwapLong", Object.class, long.class, long.class, long.class)).bindTo(unsafe);
+		found[5] = lookup.unreflect(unsafeClass.getMethod("copyMemory", Object.class, long.class, Object.class, long.class, long.class)).bindTo(unsafe);
+		found[6] = lookup.unreflect(unsafeClass.getMethod("setMemory", Object.class, long.class, long.class, byte.class)).bindTo(unsafe);
+		// Every direct buffer implements this interface, which is public on Java 8.
+		found[7] = lookup.unreflect(Class.forName("sun.nio.ch.DirectBuffer").getMethod("address")).asType(MethodType.methodType(long.class, Object.class));
+		return found;
+	}
+	/**
+	 * Looks up the Java 9 var handles and adapts them to take the buffer as an {@code Object} and the offset as a
+	 * {@code long}, like {@code Unsafe}.
+	 */
+	@NotNull
+	private static MethodHandle[] findVarHandles() throws ReflectiveOperationException {
+		Class<?> accessMode = Class.forName("java.lang.invoke.VarHandle$AccessMode");
+		Method view = MethodHandles.class.getMethod("byteBufferViewVarHandle", Class.class, ByteOrder.class);
+		Method toMethodHandle = Class.forName("java.lang.invoke.VarHandle").getMethod("toMethodHandle", accessMode);
+		Object ints = view.invoke(null, int[].class, ByteOrder.nativeOrder());
+		Object longs = view.invoke(null, long[].class, ByteOrder.nativeOrder());
+		MethodHandle[] found = new MethodHandle[8];
+		found[0] = varHandle(toMethodHandle, ints, accessMode, "GET_VOLATILE", MethodType.methodType(int.class, Object.class, long.class));
+		found[1] = varHandle(toMethodHandle, longs, accessMode, "GET_VOLATILE", MethodType.methodType(long.class, Object.class, long.class));
+		found[2] = varHandle(toMethodHandle, ints, accessMode, "SET_RELEASE", MethodType.methodType(void.class, Object.class, long.class, int.class));
+		found[3] = varHandle(toMethodHandle, longs, accessMode, "SET_RELEASE", MethodType.methodType(void.class, Object.class, long.class, long.class));
+		found[4] = varHandle(toMethodHandle, longs, accessMode, "COMPARE_AND_SET", MethodType.methodType(boolean.class, Object.class, long.class, long.class, long.class));
+		return found;
+	}
+	@NotNull
+	MappedByteBuffer getBuffer() {
+		return buffer;
+	}
+	int getIntVolatile(int offset) {
+		try {
+			return (int) GET_INT_VOLATILE.invokeExact(base, origin + offset);
+		} catch (Throwable e) {
+			throw failure(e);
+		}
+	}
+	long getLongVolatile(int offset) {
+		try {
+			return (long) GET_LONG_VOLATILE.invokeExact(base, origin + offset);
+		} catch (Throwable e) {
+			throw failure(e);
+		}
+	}
+	/**
+	 * Writes an int which other processes see only after every earlier write.
+	 */
+	void putIntOrdered(int offset, int value) {
+		try {
+			PUT_INT_ORDERED.invokeExact(base, origin + offset, value);
+		} catch (Throwable e) {
+			throw failure(e);
+		}
+	}
+	/**
+	 * Writes a long which other processes see only after every earlier write.
+	 */
+	void putLongOrdered(int offset, long value) {
+		try {
+			PUT_LONG_ORDERED.invokeExact(base, origin + offset, value);
+		} catch (Throwable e) {
+			throw failure(e);
+		}
+	}
+	@NotNull
+	private static MethodHandle varHandle(@NotNull Method toMethodHandle, @NotNull Object handle, @NotNull Class<?> accessMode, @NotNull String mode, @NotNull MethodType type) throws ReflectiveOperationException {
+		MethodHandle h = (MethodHandle) toMethodHandle.invoke(handle, accessMode.getField(mode).get(null));
+		// The casts turn the Object into a ByteBuffer and narrow the long offset to an int index.
+		return MethodHandles.explicitCastArguments(h, type);
+	}
+	void zero(int offset, int length) {
+		if(SET_MEMORY == null) {
+			for(int i = 0; i < length; i++) {
+				buffer.put(offset + i, (byte) 0);
+			}
+			return;
+		}
+		try {
+			SET_MEMORY.invokeExact(base, origin + offset, (long) length, (byte) 0);
+		} catch (Throwable e) {
+			throw failure(e);
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * Carries events between processes on the same machine through a ring buffer in a memory-mapped file. Each process
+ * opens the same file; producers {@link #send(Event, long) send} events, and one consumer {@link #receive(LongFunction,
+ * int) receives} them and fires them locally. Passing an event costs two copies and a few ordered memory writes, with
+ * no system calls, which is much cheaper than the system calls of a loopback socket. {@code
+ * SharedMemoryEventChannelBenchmark} in the tests compares the two.
+ * <p>
+ * The file holds two counters of the bytes ever written and read, followed by the ring. A producer claims space by
+ * advancing the write counter, copies the record in, and then writes the record's length, which is what makes it
+ * visible to the consumer. A channel opened for a single producer advances the counter with a plain ordered write; one
+ * opened for several producers, in one process or many, uses compare-and-set. Only one consumer may receive from a
+ * channel at a time, and a producer which dies between claiming and publishing a record stalls the consumer at that
+ * record.
+ * <p>
+ * Each class of event is sent with an {@link EventCodec} under a numeric id, which every process must register the
+ * same way. Targets are sent as ids which the consumer maps back to its own objects.
+ */
+public class SharedMemoryEventChannel implements Closeable {
+	private static final int MAGIC = 0x53574A43;
+	private static final int WRITE_COUNTER = 64;
+	private static final int READ_COUNTER = 128;
+	private static final int DATA = 192;
+	private static final int RECORD_HEADER = 4;
+	private final FileChannel channel;
+	private final SharedMemory memory;
+	private final ByteBuffer view;
+	private final int capacity;
+	private final int maxRecordSize;
+	private final boolean multiProducer;
+	private final Map<Class<?>, Type> byClass = new ConcurrentHashMap<>();
+	private final ThreadLocal<ByteBuffer> scratch;
+	private volatile Type[] byId = new Type[0];
+	/**
+	 * Opens a channel, creating the file if it does not exist. Every process must open the file with the same capacity.
+	 *
+	 * @param file
+	 * 		The file which holds the ring buffer, preferably on a memory file system such as {@code /dev/shm}.
+	 * @param capacity
+	 * 		The size of the ring buffer in bytes, which must be a power of two.
+	 * @param multiProducer
+	 * 		Whether more than one thread, in this or any other process, may send events.
+	 *
+	 * @throws IOException
+	 * 		If the file cannot be opened, or was created with a different capacity.
+	 */
+	public SharedMemoryEventChannel(@NotNull File file, int capacity, boolean multiProducer) throws IOException {
+		if(capacity < 1024 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("The capacity must be a power of two of at least 1024 bytes.");
+		}
+		this.capacity = capacity;
+		this.maxRecordSize = Math.min(capacity / 4, 64 << 10);
+		this.multiProducer = multiProducer;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			MappedByteBuffer buffer;
+			// The lock keeps two processes from initializing the file at once.
+			try (FileLock ignored = channel.lock()) {
+				boolean fresh = channel.size() == 0;
+				buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA + capacity);
+				if(fresh) {
+					buffer.putInt(4, capacity);
+					buffer.putInt(0, MAGIC);
+					buffer.force();
+				} else if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != capacity) {
+					throw new IOException("The file is not an event channel with a capacity of " + capacity + " bytes.");
+				}
+			}
+			this.memory = new SharedMemory(buffer);
+			this.view = buffer.duplicate();
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		this.scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(maxRecordSize));
+	}
+	private static int align(int length) {
+		return (length + 7) & ~7;
+	}
+	/**
+	 * Closes the file. Events which have not been received stay in it for the next process that opens it.
+	 *
+	 * @throws IOException
+	 * 		If an I/O error occurs.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	/**
+	 * Retrieves the number of bytes of events which have been sent and not yet received.
+	 *
+	 * @return The number of pending bytes, including record headers and padding.
+	 */
+	public long getPendingBytes() {
+		return memory.getLongVolatile(WRITE_COUNTER) - memory.getLongVolatile(READ_COUNTER);
+	}
+	/**
+	 * Fires events received from the channel on the calling thread, until the channel is empty or {@code maxEvents}
+	 * events have been fired. Events of classes which have not been registered, and events whose target {@code
+	 * targets} does not know, are discarded.
+	 *
+	 * @param targets
+	 * 		Finds the local target with a sent id, or returns {@code null} if there is none.
+	 * @param maxEvents
+	 * 		The maximum number of events to fire.
+	 *
+	 * @return The number of events received, including discarded ones.
+	 */
+	public int receive(@NotNull LongFunction<Object> targets, int maxEvents) {
+		int n = 0;
+		long read = memory.getLongVolatile(READ_COUNTER);
+		while(n < maxEvents) {
+			int offset = DATA + (int) (read & (capacity - 1));
+			int length = memory.getIntVolatile(offset);
+			if(length == 0) {
+				break;
+			}
+			if(length < 0) {
+				// Padding at the end of the ring, where the next record did not fit.
+				memory.zero(offset, -length);
+				read += -length;
+				memory.putLongOrdered(READ_COUNTER, read);
+				continue;
+			}
+			view.limit(offset + RECORD_HEADER + length).position(offset + RECORD_HEADER);
+			int typeId = view.getInt();
+			long targetId = view.getLong();
+			Type[] types = byId;
+			Type type = typeId < types.length ? types[typeId] : null;
+			Object target = type == null ? null : targets.apply(targetId);
+			Event event = target == null ? null : type.codec.decode(target, view);
+			int size = align(RECORD_HEADER + length);
+			// The record is cleared before it is released, so that producers find zeroes where the next lengths go.
+			memory.zero(offset, size);
+			read += size;
+			memory.putLongOrdered(READ_COUNTER, read);
+			n++;
+			if(event != null) {
+				event.fire();
+			}
+		}
+		return n;
+	}
+	/**
+	 * Registers a class of event which may be sent and received through this channel.
+	 *
+	 * @param id
+	 * 		The id of the class, which every process using the channel must register for the same class.
+	 * @param eventClass
+	 * 		The exact class of the events.
+	 * @param codec
+	 * 		Converts the events to and from bytes.
+	 * @param <E>
+	 * 		The class of the events.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <E extends Event> void register(int id, @NotNull Class<E> eventClass, @NotNull EventCodec<E> codec) {
+		if(id < 0 || id > 0xFFFF) {
+			throw new IllegalArgumentException("The id must be between 0 and 65535.");
+		}
+		Type type = new Type(id, (EventCodec<Event>) codec);
+		Type[] types = byId.length > id ? byId.clone() : Arrays.copyOf(byId, id + 1);
+		types[id] = type;
+		byClass.put(eventClass, type);
+		byId = types;
+	}
+	/**
+	 * Sends an event to the consumer, unless the ring buffer is full.
+	 *
+	 * @param event
+	 * 		The event to send. Its class must have been registered.
+	 * @param targetId
+	 * 		The id which identifies the event's target to the consumer.
+	 *
+	 * @return {@code true} if the event was sent, {@code false} if there was no room for it.
+	 * @throws IllegalArgumentException
+	 * 		If the event's class has not been registered, or its encoded form is larger than a quarter of the capacity or
+	 * 		64 KB.
+	 */
+	public boolean send(@NotNull Event event, long targetId) {
+		Type type = byClass.get(event.getClass());
+		if(type == null) {
+			throw new IllegalArgumentException(event.getClass().getName() + " has not been registered.");
+		}
+		ByteBuffer buf = scratch.get();
+		buf.clear();
+		try {
+			buf.putInt(type.id).putLong(targetId);
+			type.codec.encode(event, buf);
+		} catch (BufferOverflowException e) {
+			throw new IllegalArgumentException("The event is larger than " + maxRecordSize + " bytes.", e);
+		}
+		int length = buf.position();
+		int size = align(RECORD_HEADER + length);
+		long write;
+		int offset;
+		int padding;
+		while(true) {
+			write = memory.getLongVolatile(WRITE_COUNTER);
+			offset = (int) (write & (capacity - 1));
+			padding = capacity - offset < size ? capacity - offset : 0;
+			if(write + padding + size - memory.getLongVolatile(READ_COUNTER) > capacity) {
+				return false;
+			}
+			if(!multiProducer) {
+				memory.putLongOrdered(WRITE_COUNTER, write + padding + size);
+				break;
+			}
+			if(memory.compareAndSetLong(WRITE_COUNTER, write, write + padding + size)) {
+				break;
+			}
+		}
+		if(padding > 0) {
+			memory.putIntOrdered(DATA + offset, -padding);
+			offset = 0;
+		}
+		memory.copyFrom(buf.array(), length, DATA + offset + RECORD_HEADER);
+		memory.putIntOrdered(DATA + offset, length);
+		return true;
+	}
+	
+	private static final class Type {
+		private final int id;
+		private final EventCodec<Event> codec;
+		Type(int id, @NotNull EventCodec<Event> codec) {
+			this.id = id;
+			this.codec = codec;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Is told when a {@link Listener} method takes longer than a {@link DispatchMonitor}'s threshold.
+ *
+ * @see DispatchMonitor#DispatchMonitor(long, java.util.concurrent.TimeUnit, SlowListenerHandler)
+ */
+@FunctionalInterface
+public interface SlowListenerHandler {
+	/**
+	 * Called on the thread which fired the event, after the listener method returns. Exceptions thrown by this method
+	 * are passed to the {@link ListenerExceptionHandler} as if the listener method had thrown them.
+	 *
+	 * @param event
+	 * 		The event that was being fired.
+	 * @param listener
+	 * 		The listener whose method was slow.
+	 * @param method
+	 * 		A description of the listener method, as in {@link ListenerStatistics#getMethod()}.
+	 * @param nanos
+	 * 		How long the method took, in nanoseconds.
+	 */
+	void handle(@NotNull Event event, @NotNull Object listener, @NotNull String method, long nanos);
+}
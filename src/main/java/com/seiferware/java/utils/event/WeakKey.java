@@ -0,0 +1,53 @@
+package com.seiferware.java.utils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * A map key which refers to its object weakly. Two keys are equal if they are the same key or their objects are equal,
+ * so a key whose object has been collected is only equal to itself, and can still be removed from the map after it is
+ * taken from its {@link ReferenceQueue}.
+ */
+final class WeakKey extends WeakReference<Object> {
+	private final int hash;
+	WeakKey(@NotNull Object referent, @NotNull ReferenceQueue<Object> queue) {
+		super(referent, queue);
+		hash = referent.hashCode();
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == this) {
+			return true;
+		}
+		if(obj instanceof WeakKey) {
+			Object referent = get();
+			return referent != null && referent.equals(((WeakKey) obj).get());
+		}
+		return obj instanceof Lookup && obj.equals(this);
+	}
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+	
+	/**
+	 * A short-lived key for looking up an object in a map with {@link WeakKey}s, which avoids registering a reference
+	 * with the queue.
+	 */
+	static final class Lookup {
+		private final Object referent;
+		Lookup(@NotNull Object referent) {
+			this.referent = referent;
+		}
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof WeakKey && referent.equals(((WeakKey) obj).get());
+		}
+		@Override
+		public int hashCode() {
+			return referent.hashCode();
+		}
+	}
+}
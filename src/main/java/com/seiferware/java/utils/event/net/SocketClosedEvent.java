@@ -1,5 +1,6 @@
 package com.seiferware.java.utils.event.net;
 
+import com.seiferware.java.utils.event.EventPool;
 import org.jetbrains.annotations.NotNull;
 
 import java.net.Socket;
@@ -8,6 +9,7 @@ import java.net.Socket;
  * An event to be fired when the connection to a remote host on a {@link Socket} has been closed.
  */
 public class SocketClosedEvent extends SocketPoolEvent {
+	private static final EventPool<SocketClosedEvent> POOL = new EventPool<>(SocketClosedEvent::new);
 	/**
 	 * Creates the event.
 	 *
@@ -19,4 +21,27 @@ public class SocketClosedEvent extends SocketPoolEvent {
 	public SocketClosedEvent(@NotNull Object target, @NotNull Socket socket) {
 		super(target, socket);
 	}
+	private SocketClosedEvent() {
+	}
+	/**
+	 * Fires the event. A pooled event is taken from a per-thread {@link EventPool} instead of being allocated, so
+	 * listeners which keep it after they return must call {@link #retain()}.
+	 *
+	 * @param target
+	 * 		The socket pool responsible for the connection.
+	 * @param socket
+	 * 		The {@link Socket} to which the connection was bound.
+	 * @param pooled
+	 * 		{@code true} to fire an instance from the pool, {@code false} to fire a new instance.
+	 */
+	public static void fire(@NotNull Object target, @NotNull Socket socket, boolean pooled) {
+		if(!pooled) {
+			new SocketClosedEvent(target, socket).fire();
+			return;
+		}
+		SocketClosedEvent event = POOL.acquire();
+		event.reset(target);
+		event.socket = socket;
+		POOL.fire(event);
+	}
 }
@@ -1,5 +1,6 @@
 package com.seiferware.java.utils.event.net;
 
+import com.seiferware.java.utils.event.EventPool;
 import org.jetbrains.annotations.NotNull;
 
 import java.net.ServerSocket;
@@ -9,6 +10,7 @@ import java.net.Socket;
  * An event to be fired when a remote host has connected to a {@link ServerSocket}, spawning a new {@link Socket}.
  */
 public class SocketConnectedEvent extends SocketPoolEvent {
+	private static final EventPool<SocketConnectedEvent> POOL = new EventPool<>(SocketConnectedEvent::new);
 	/**
 	 * Creates the event.
 	 *
@@ -20,4 +22,27 @@ public class SocketConnectedEvent extends SocketPoolEvent {
 	public SocketConnectedEvent(@NotNull Object target, @NotNull Socket socket) {
 		super(target, socket);
 	}
+	private SocketConnectedEvent() {
+	}
+	/**
+	 * Fires the event. A pooled event is taken from a per-thread {@link EventPool} instead of being allocated, so
+	 * listeners which keep it after they return must call {@link #retain()}.
+	 *
+	 * @param target
+	 * 		The socket pool responsible for the connection.
+	 * @param socket
+	 * 		The {@link Socket} to which the connection is bound.
+	 * @param pooled
+	 * 		{@code true} to fire an instance from the pool, {@code false} to fire a new instance.
+	 */
+	public static void fire(@NotNull Object target, @NotNull Socket socket, boolean pooled) {
+		if(!pooled) {
+			new SocketConnectedEvent(target, socket).fire();
+			return;
+		}
+		SocketConnectedEvent event = POOL.acquire();
+		event.reset(target);
+		event.socket = socket;
+		POOL.fire(event);
+	}
 }
@@ -0,0 +1,70 @@
+package com.seiferware.java.utils.event.net;
+
+import com.seiferware.java.utils.event.EventPool;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * An event to be fired when data has been received on a {@link Socket}.
+ */
+public class SocketDataEvent extends SocketPoolEvent {
+	private static final EventPool<SocketDataEvent> POOL = new EventPool<>(SocketDataEvent::new);
+	protected ByteBuffer data;
+	/**
+	 * Creates the event.
+	 *
+	 * @param target
+	 * 		The socket pool responsible for the connection.
+	 * @param socket
+	 * 		The {@link Socket} on which the data arrived.
+	 * @param data
+	 * 		The data, between the buffer's position and limit.
+	 */
+	public SocketDataEvent(@NotNull Object target, @NotNull Socket socket, @NotNull ByteBuffer data) {
+		super(target, socket);
+		this.data = data;
+	}
+	private SocketDataEvent() {
+	}
+	@Override
+	protected void clear() {
+		super.clear();
+		data = null;
+	}
+	/**
+	 * Fires the event. A pooled event is taken from a per-thread {@link EventPool} instead of being allocated, so
+	 * listeners which keep it after they return must call {@link #retain()}.
+	 *
+	 * @param target
+	 * 		The socket pool responsible for the connection.
+	 * @param socket
+	 * 		The {@link Socket} on which the data arrived.
+	 * @param data
+	 * 		The data, between the buffer's position and limit.
+	 * @param pooled
+	 * 		{@code true} to fire an instance from the pool, {@code false} to fire a new instance.
+	 */
+	public static void fire(@NotNull Object target, @NotNull Socket socket, @NotNull ByteBuffer data, boolean pooled) {
+		if(!pooled) {
+			new SocketDataEvent(target, socket, data).fire();
+			return;
+		}
+		SocketDataEvent event = POOL.acquire();
+		event.reset(target);
+		event.socket = socket;
+		event.data = data;
+		POOL.fire(event);
+	}
+	/**
+	 * The data which was received. The buffer may be reused for the next data once the event has been handled, so
+	 * listeners which keep the data must copy it, and retaining the event does not keep it.
+	 *
+	 * @return The data, between the buffer's position and limit.
+	 */
+	@NotNull
+	public ByteBuffer getData() {
+		return data;
+	}
+}
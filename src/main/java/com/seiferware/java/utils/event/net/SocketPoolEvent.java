@@ -14,7 +14,7 @@ import java.net.Socket;
  * @see SocketClosedEvent
  */
 public class SocketPoolEvent extends Event {
-	protected final Socket socket;
+	protected Socket socket;
 	/**
 	 * Creates the event.
 	 *
@@ -27,6 +27,17 @@ public class SocketPoolEvent extends Event {
 		super(target);
 		this.socket = socket;
 	}
+	/**
+	 * Creates the event without a target or socket, to be kept in an {@link com.seiferware.java.utils.event.EventPool}.
+	 */
+	protected SocketPoolEvent() {
+		super(true, true);
+	}
+	@Override
+	protected void clear() {
+		super.clear();
+		socket = null;
+	}
 	/**
 	 * The socket instance on which the event occurred.
 	 *
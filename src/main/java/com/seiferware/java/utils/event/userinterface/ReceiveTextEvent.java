@@ -1,12 +1,14 @@
 package com.seiferware.java.utils.event.userinterface;
 
+import com.seiferware.java.utils.event.EventPool;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * An event to be fired when a user interface has received textual input.
  */
 public class ReceiveTextEvent extends UserInterfaceEvent {
-	private final String text;
+	private static final EventPool<ReceiveTextEvent> POOL = new EventPool<>(ReceiveTextEvent::new);
+	private String text;
 	/**
 	 * Creates the event.
 	 *
@@ -19,6 +21,34 @@ public class ReceiveTextEvent extends UserInterfaceEvent {
 		super(target);
 		text = line;
 	}
+	private ReceiveTextEvent() {
+	}
+	@Override
+	protected void clear() {
+		super.clear();
+		text = null;
+	}
+	/**
+	 * Fires the event. A pooled event is taken from a per-thread {@link EventPool} instead of being allocated, so
+	 * listeners which keep it after they return must call {@link #retain()}.
+	 *
+	 * @param target
+	 * 		The user interface that received input.
+	 * @param line
+	 * 		The textual input that was received.
+	 * @param pooled
+	 * 		{@code true} to fire an instance from the pool, {@code false} to fire a new instance.
+	 */
+	public static void fire(@NotNull Object target, @NotNull String line, boolean pooled) {
+		if(!pooled) {
+			new ReceiveTextEvent(target, line).fire();
+			return;
+		}
+		ReceiveTextEvent event = POOL.acquire();
+		event.reset(target);
+		event.text = line;
+		POOL.fire(event);
+	}
 	/**
 	 * Retrieves the textual input that was the cause of the event.
 	 *
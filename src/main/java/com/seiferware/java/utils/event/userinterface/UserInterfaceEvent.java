@@ -16,4 +16,10 @@ public class UserInterfaceEvent extends Event {
 	public UserInterfaceEvent(@NotNull Object target) {
 		super(target);
 	}
+	/**
+	 * Creates the event without a target, to be kept in an {@link com.seiferware.java.utils.event.EventPool}.
+	 */
+	protected UserInterfaceEvent() {
+		super(true, true);
+	}
 }
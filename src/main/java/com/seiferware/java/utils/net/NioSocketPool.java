@@ -0,0 +1,433 @@
+package com.seiferware.java.utils.net;
+
+import com.seiferware.java.utils.event.net.SocketClosedEvent;
+import com.seiferware.java.utils.event.net.SocketConnectedEvent;
+import com.seiferware.java.utils.event.net.SocketDataEvent;
+import com.seiferware.java.utils.threading.AsyncTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A utility which listens on a socket and throws events when connections are opened or closed, and when data arrives.
+ * Unlike {@link SocketPool}, it needs no thread per connection: a reactor thread waits on a {@link Selector} for
+ * incoming data and room to send, across any number of connections.
+ * <p>
+ * By default, the pool's own thread accepts connections and is the only reactor. A pool created with several reactors
+ * instead accepts connections on its own thread and hands each one to the reactor with the fewest connections, taking
+ * turns between equally loaded ones, so network processing can use more than one core. Every event of a connection is
+ * fired on the thread of the reactor which owns it, so listeners should return quickly, and see each connection's
+ * events in order.
+ * <p>
+ * Data is sent with {@link #send(Socket, ByteBuffer)}, which may be called from any thread and queues the data until
+ * the connection can take it. When a client stops sending, its connection is closed once the data already queued for
+ * it has been sent, so a client which shuts down its output after a request still receives the reply.
+ */
+public class NioSocketPool extends AsyncTask {
+	private static final int READ_BUFFER_SIZE = 64 << 10;
+	private static final long SELECT_TIMEOUT = 100;
+	protected int port;
+	protected volatile boolean pooledEvents = false;
+	private final Map<Socket, Connection> connections = new ConcurrentHashMap<>();
+	private final Reactor[] reactors;
+	private final AtomicInteger nextReactor = new AtomicInteger();
+	private volatile Selector selector;
+	private volatile int localPort = -1;
+	private ServerSocketChannel server;
+	/**
+	 * Creates the pool, ready to listen on the specified port, with its own thread as the only reactor.
+	 *
+	 * @param port
+	 * 		The port on which to listen, or 0 for any free port.
+	 */
+	public NioSocketPool(int port) {
+		this(port, 1);
+	}
+	/**
+	 * Creates the pool, ready to listen on the specified port.
+	 *
+	 * @param port
+	 * 		The port on which to listen, or 0 for any free port.
+	 * @param reactors
+	 * 		The number of reactor threads. 1 runs everything on the pool's own thread; more start that many reactor
+	 * 		threads besides it, which only accepts connections. 0 or less uses one reactor per available processor.
+	 */
+	public NioSocketPool(int port, int reactors) {
+		this.port = port;
+		int n = reactors > 0 ? reactors : Runtime.getRuntime().availableProcessors();
+		this.reactors = new Reactor[n];
+		for(int i = 0; i < n; i++) {
+			this.reactors[i] = new Reactor();
+		}
+	}
+	private void accept() throws IOException {
+		for(SocketChannel channel = server.accept(); channel != null; channel = server.accept()) {
+			channel.configureBlocking(false);
+			assign().connect(channel);
+		}
+	}
+	/**
+	 * Chooses the reactor with the fewest connections, starting from the next one in turn so that ties are shared out.
+	 */
+	@NotNull
+	private Reactor assign() {
+		int start = Math.floorMod(nextReactor.getAndIncrement(), reactors.length);
+		Reactor best = reactors[start];
+		for(int i = 1; i < reactors.length; i++) {
+			Reactor r = reactors[(start + i) % reactors.length];
+			if(r.load.get() < best.load.get()) {
+				best = r;
+			}
+		}
+		best.load.incrementAndGet();
+		return best;
+	}
+	private void close(@NotNull Connection c) {
+		if(connections.remove(c.socket) == null) {
+			return;
+		}
+		c.reactor.load.decrementAndGet();
+		c.key.cancel();
+		try {
+			c.channel.close();
+		} catch (IOException ignored) {
+		}
+		SocketClosedEvent.fire(this, c.socket, pooledEvents);
+	}
+	/**
+	 * Closes a connection once the data queued for it has been sent.
+	 *
+	 * @param socket
+	 * 		The socket of the connection, as provided by a {@link SocketConnectedEvent}.
+	 */
+	public void disconnect(@NotNull Socket socket) {
+		Connection c = connections.get(socket);
+		if(c != null) {
+			c.closing = true;
+			c.reactor.requestFlush(c);
+		}
+	}
+	/**
+	 * Retrieves the number of open connections.
+	 *
+	 * @return The number of connections.
+	 */
+	public int getConnectionCount() {
+		return connections.size();
+	}
+	/**
+	 * Retrieves the port on which the pool is listening, which is useful when it was created with port 0.
+	 *
+	 * @return The port, or -1 if the pool is not listening yet.
+	 */
+	public int getLocalPort() {
+		return localPort;
+	}
+	@Override
+	protected long getLoopDelay() {
+		return 0;
+	}
+	/**
+	 * Retrieves the number of reactors which handle the pool's connections.
+	 *
+	 * @return The number of reactors.
+	 */
+	public int getReactorCount() {
+		return reactors.length;
+	}
+	@Override
+	protected void onLoop() {
+		if(reactors.length == 1) {
+			reactors[0].onLoop();
+			return;
+		}
+		try {
+			selector.select(SELECT_TIMEOUT);
+		} catch (IOException e) {
+			return;
+		}
+		selector.selectedKeys().clear();
+		try {
+			accept();
+		} catch (IOException ignored) {
+		}
+	}
+	@Override
+	protected void onStart() {
+		try {
+			for(Reactor r : reactors) {
+				r.selector = Selector.open();
+			}
+			selector = reactors.length == 1 ? reactors[0].selector : Selector.open();
+			server = ServerSocketChannel.open();
+			server.configureBlocking(false);
+			server.bind(new InetSocketAddress(port));
+			server.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			stop();
+			return;
+		}
+		if(reactors.length > 1) {
+			for(Reactor r : reactors) {
+				r.start();
+			}
+		}
+		localPort = server.socket().getLocalPort();
+	}
+	@Override
+	protected void onStop() {
+		try {
+			if(server != null) {
+				server.close();
+			}
+		} catch (IOException ignored) {
+		}
+		if(reactors.length == 1) {
+			reactors[0].onStop();
+		} else {
+			for(Reactor r : reactors) {
+				if(r.isStopped()) {
+					r.onStop();
+				} else {
+					r.stopAndBlock();
+				}
+			}
+			try {
+				if(selector != null) {
+					selector.close();
+				}
+			} catch (IOException ignored) {
+			}
+		}
+		localPort = -1;
+	}
+	@Override
+	protected boolean requestStop() {
+		Selector s = selector;
+		if(s != null) {
+			s.wakeup();
+		}
+		return true;
+	}
+	/**
+	 * Queues data to be sent on a connection. The data is sent by the connection's reactor, in the order it was
+	 * queued, as soon as the connection can take it.
+	 *
+	 * @param socket
+	 * 		The socket of the connection, as provided by a {@link SocketConnectedEvent}.
+	 * @param data
+	 * 		The data to send, between the buffer's position and limit. The buffer must not be changed until it has been
+	 * 		sent, so callers should not reuse it.
+	 *
+	 * @return {@code true} if the data was queued, {@code false} if the connection is closed.
+	 */
+	public boolean send(@NotNull Socket socket, @NotNull ByteBuffer data) {
+		Connection c = connections.get(socket);
+		if(c == null || c.closing) {
+			return false;
+		}
+		c.pending.add(data);
+		c.reactor.requestFlush(c);
+		return true;
+	}
+	/**
+	 * Sets whether the pool's events are taken from a per-thread pool, as described by {@link
+	 * SocketDataEvent#fire(Object, Socket, ByteBuffer, boolean)}. Off by default.
+	 *
+	 * @param pooled
+	 * 		{@code true} to fire pooled events.
+	 */
+	public void setPooledEvents(boolean pooled) {
+		this.pooledEvents = pooled;
+	}
+	
+	private static final class Connection {
+		private final Reactor reactor;
+		private final SocketChannel channel;
+		private final Socket socket;
+		private final SelectionKey key;
+		private final Queue<ByteBuffer> pending = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean flushRequested = new AtomicBoolean();
+		private volatile boolean closing = false;
+		private boolean inputShutdown = false;
+		Connection(@NotNull Reactor reactor, @NotNull SocketChannel channel, @NotNull SelectionKey key) {
+			this.reactor = reactor;
+			this.channel = channel;
+			this.socket = channel.socket();
+			this.key = key;
+		}
+	}
+	
+	/**
+	 * Waits on a selector for the connections assigned to it, and fires their events. Connections accepted on another
+	 * thread are queued and registered by the reactor itself, since registering with a selector blocks while another
+	 * thread is selecting on it.
+	 */
+	private final class Reactor extends AsyncTask {
+		private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+		private final Queue<SocketChannel> incoming = new ConcurrentLinkedQueue<>();
+		private final Queue<Connection> flushRequests = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger load = new AtomicInteger();
+		private volatile Selector selector;
+		private void connect(@NotNull SocketChannel channel) {
+			incoming.add(channel);
+			selector.wakeup();
+		}
+		@Override
+		protected long getLoopDelay() {
+			return 0;
+		}
+		@Override
+		protected void onLoop() {
+			try {
+				selector.select(SELECT_TIMEOUT);
+			} catch (IOException e) {
+				return;
+			}
+			for(SocketChannel channel = incoming.poll(); channel != null; channel = incoming.poll()) {
+				register(channel);
+			}
+			for(Connection c = flushRequests.poll(); c != null; c = flushRequests.poll()) {
+				c.flushRequested.set(false);
+				write(c);
+			}
+			Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+			while(it.hasNext()) {
+				SelectionKey key = it.next();
+				it.remove();
+				if(!key.isValid()) {
+					continue;
+				}
+				if(key.isAcceptable()) {
+					try {
+						accept();
+					} catch (IOException ignored) {
+					}
+					continue;
+				}
+				Connection c = (Connection) key.attachment();
+				if(key.isReadable()) {
+					read(c);
+				}
+				if(key.isValid() && key.isWritable()) {
+					write(c);
+				}
+			}
+		}
+		@Override
+		protected void onStop() {
+			for(SocketChannel channel = incoming.poll(); channel != null; channel = incoming.poll()) {
+				load.decrementAndGet();
+				try {
+					channel.close();
+				} catch (IOException ignored) {
+				}
+			}
+			if(selector == null || !selector.isOpen()) {
+				return;
+			}
+			List<Connection> owned = new ArrayList<>();
+			for(SelectionKey key : selector.keys()) {
+				if(key.attachment() instanceof Connection) {
+					owned.add((Connection) key.attachment());
+				}
+			}
+			owned.forEach(NioSocketPool.this::close);
+			try {
+				selector.close();
+			} catch (IOException ignored) {
+			}
+		}
+		private void read(@NotNull Connection c) {
+			readBuffer.clear();
+			try {
+				int n = c.channel.read(readBuffer);
+				if(n < 0) {
+					// The peer has only stopped sending, and may still be waiting for replies which are queued.
+					c.inputShutdown = true;
+					c.closing = true;
+					write(c);
+				} else if(n > 0) {
+					readBuffer.flip();
+					SocketDataEvent.fire(NioSocketPool.this, c.socket, readBuffer, pooledEvents);
+				}
+			} catch (IOException e) {
+				close(c);
+			}
+		}
+		private void register(@NotNull SocketChannel channel) {
+			Connection c;
+			try {
+				c = new Connection(this, channel, channel.register(selector, SelectionKey.OP_READ));
+			} catch (IOException e) {
+				load.decrementAndGet();
+				try {
+					channel.close();
+				} catch (IOException ignored) {
+				}
+				return;
+			}
+			c.key.attach(c);
+			connections.put(c.socket, c);
+			SocketConnectedEvent.fire(NioSocketPool.this, c.socket, pooledEvents);
+		}
+		private void requestFlush(@NotNull Connection c) {
+			if(c.flushRequested.compareAndSet(false, true)) {
+				flushRequests.add(c);
+				Selector s = selector;
+				if(s != null) {
+					s.wakeup();
+				}
+			}
+		}
+		@Override
+		protected boolean requestStop() {
+			Selector s = selector;
+			if(s != null) {
+				s.wakeup();
+			}
+			return true;
+		}
+		/**
+		 * Sends as much queued data as the connection will take, and waits to be told when it can take more if there is
+		 * any left.
+		 */
+		private void write(@NotNull Connection c) {
+			if(!c.key.isValid()) {
+				return;
+			}
+			try {
+				for(ByteBuffer data = c.pending.peek(); data != null; data = c.pending.peek()) {
+					c.channel.write(data);
+					if(data.hasRemaining()) {
+						c.key.interestOps(c.inputShutdown ? SelectionKey.OP_WRITE : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+						return;
+					}
+					c.pending.poll();
+				}
+				c.key.interestOps(c.inputShutdown ? 0 : SelectionKey.OP_READ);
+				if(c.closing) {
+					close(c);
+				}
+			} catch (IOException e) {
+				close(c);
+			}
+		}
+	}
+}
@@ -3,55 +3,83 @@ package com.seiferware.java.utils.net;
 import com.seiferware.java.utils.event.net.SocketClosedEvent;
 import com.seiferware.java.utils.event.net.SocketConnectedEvent;
 import com.seiferware.java.utils.threading.AsyncTask;
+import org.jetbrains.annotations.NotNull;
 
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A utility which listens on a socket and throws events when connections are opened or closed.
+ * <p>
+ * A connection counts as closed as soon as it is closed by either side and this is seen on the socket: when the socket
+ * is closed, when a read from its input stream reaches the end of the stream, or when a read or write fails. A {@link
+ * SocketClosedEvent} is then fired on the thread which saw it, exactly once, and the pool forgets the socket. A failed
+ * read or write closes the socket. The end of the stream only means that the remote host has stopped sending, so the
+ * socket stays open for writing, and the application must close it once it has sent any reply. A connection whose
+ * streams are never used is only seen to close when it is closed locally.
  */
 public class SocketPool extends AsyncTask {
 	protected int port;
-	protected AsyncTask disconnects;
-	ServerSocket socket;
-	List<Socket> sockList = new ArrayList<>();
+	protected volatile boolean pooledEvents = false;
+	volatile ServerSocket socket;
+	final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
 	/**
 	 * Creates the pool, ready to listen on the specified port.
 	 *
 	 * @param port
-	 * 		The port on which to listen.
+	 * 		The port on which to listen, or 0 for any free port.
 	 */
 	public SocketPool(int port) {
 		this.port = port;
-		final SocketPool me = this;
-		disconnects = new AsyncTask() {
-			@Override
-			protected void onLoop() {
-				new ArrayList<>(sockList).stream().filter(sock -> !sock.isConnected() || sock.isClosed()).forEach(sock -> {
-					sockList.remove(sock);
-					new SocketClosedEvent(me, sock).fire();
-				});
-			}
-		};
-		disconnects.start();
+	}
+	/**
+	 * Removes a connection which has closed, firing the event if it had not been removed already.
+	 */
+	private void closed(@NotNull Socket sock) {
+		if(sockets.remove(sock)) {
+			SocketClosedEvent.fire(this, sock, pooledEvents);
+		}
+	}
+	/**
+	 * Retrieves the port on which the pool is listening, which is useful when it was created with port 0.
+	 *
+	 * @return The port, or -1 if the pool is not listening.
+	 */
+	public int getLocalPort() {
+		ServerSocket s = socket;
+		return s == null ? -1 : s.getLocalPort();
+	}
+	@Override
+	protected long getLoopDelay() {
+		// accept() waits for the next connection.
+		return 0;
 	}
 	@Override
 	protected void onLoop() {
 		try {
 			Socket client = socket.accept();
-			sockList.add(client);
-			new SocketConnectedEvent(this, client).fire();
-		} catch (IOException ignored) {
+			sockets.add(client);
+			SocketConnectedEvent.fire(this, client, pooledEvents);
+		} catch (IOException e) {
+			if(socket.isClosed()) {
+				stop();
+			}
 		}
 	}
 	@Override
 	protected void onStart() {
 		try {
-			socket = new ServerSocket();
+			socket = new Server();
 			socket.bind(new InetSocketAddress(port));
 		} catch (IOException e) {
 			stop();
@@ -59,15 +87,12 @@ public class SocketPool extends AsyncTask {
 	}
 	@Override
 	protected void onStop() {
-		disconnects.stopAndBlock();
-		new ArrayList<>(sockList).stream().filter(sock -> sock.isConnected() && !sock.isClosed()).forEach(sock -> {
+		for(Socket sock : new ArrayList<>(sockets)) {
 			try {
 				sock.close();
-				new SocketClosedEvent(this, sock).fire();
-				sockList.remove(sock);
 			} catch (IOException ignored) {
 			}
-		});
+		}
 		if(socket != null) {
 			try {
 				socket.close();
@@ -85,4 +110,106 @@ public class SocketPool extends AsyncTask {
 		}
 		return true;
 	}
+	/**
+	 * Sets whether the pool's events are taken from a per-thread pool, as described by {@link
+	 * SocketConnectedEvent#fire(Object, Socket, boolean)}. Off by default.
+	 *
+	 * @param pooled
+	 * 		{@code true} to fire pooled events.
+	 */
+	public void setPooledEvents(boolean pooled) {
+		this.pooledEvents = pooled;
+	}
+	
+	/**
+	 * Accepts connections as {@link PooledSocket}s.
+	 */
+	private final class Server extends ServerSocket {
+		Server() throws IOException {
+		}
+		@Override
+		public Socket accept() throws IOException {
+			Socket s = new PooledSocket();
+			implAccept(s);
+			return s;
+		}
+	}
+	
+	/**
+	 * A socket which tells the pool when its connection has closed.
+	 */
+	private final class PooledSocket extends Socket {
+		private void broken() {
+			try {
+				close();
+			} catch (IOException ignored) {
+			}
+		}
+		@Override
+		public synchronized void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				closed(this);
+			}
+		}
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return new FilterInputStream(super.getInputStream()) {
+				@Override
+				public int read() throws IOException {
+					try {
+						int b = super.read();
+						if(b < 0) {
+							closed(PooledSocket.this);
+						}
+						return b;
+					} catch (SocketTimeoutException e) {
+						throw e;
+					} catch (IOException e) {
+						broken();
+						throw e;
+					}
+				}
+				@Override
+				public int read(@NotNull byte[] b, int off, int len) throws IOException {
+					try {
+						int n = super.read(b, off, len);
+						if(n < 0) {
+							closed(PooledSocket.this);
+						}
+						return n;
+					} catch (SocketTimeoutException e) {
+						throw e;
+					} catch (IOException e) {
+						broken();
+						throw e;
+					}
+				}
+			};
+		}
+		@Override
+		public OutputStream getOutputStream() throws IOException {
+			return new FilterOutputStream(super.getOutputStream()) {
+				@Override
+				public void write(int b) throws IOException {
+					try {
+						out.write(b);
+					} catch (IOException e) {
+						broken();
+						throw e;
+					}
+				}
+				@Override
+				public void write(@NotNull byte[] b, int off, int len) throws IOException {
+					try {
+						out.write(b, off, len);
+					} catch (IOException e) {
+						broken();
+						throw e;
+					}
+				}
+			};
+		}
+	}
 }
@@ -1,10 +1,13 @@
 package com.seiferware.java.utils.reflection;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.*;
 
 /**
@@ -180,4 +183,31 @@ public final class ClassReflection {
 		}
 		return lst.toArray(new Class<?>[lst.size()]);
 	}
+	/**
+	 * Retrieves the class of one of the type arguments of a generic type, such as the element type of a {@code
+	 * List<Integer>} field. Type arguments which are themselves parameterized give their raw class.
+	 *
+	 * @param type
+	 * 		The generic type, usually from {@link Field#getGenericType()} or {@link Method#getGenericReturnType()}.
+	 * @param index
+	 * 		The position of the type argument.
+	 *
+	 * @return The class of the type argument, or {@code null} if {@code type} is not parameterized, has no argument at
+	 * that position, or the argument is a wildcard or type variable.
+	 */
+	@Nullable
+	public static Class<?> getTypeArgument(@NotNull Type type, int index) {
+		if(!(type instanceof ParameterizedType)) {
+			return null;
+		}
+		Type[] args = ((ParameterizedType) type).getActualTypeArguments();
+		if(index < 0 || index >= args.length) {
+			return null;
+		}
+		Type arg = args[index];
+		if(arg instanceof ParameterizedType) {
+			arg = ((ParameterizedType) arg).getRawType();
+		}
+		return arg instanceof Class ? (Class<?>) arg : null;
+	}
 }
@@ -5,8 +5,17 @@ package com.seiferware.java.utils.threading;
  * use-specific functionality.
  */
 public abstract class AsyncTask implements Runnable {
-	private boolean stopped = true;
-	private boolean finished = false;
+	private volatile boolean stopped = true;
+	private volatile boolean finished = false;
+	/**
+	 * The time to sleep between calls to {@link #onLoop}. Implementations whose loop already waits for work, for example
+	 * on a blocking call, may override this to return 0.
+	 *
+	 * @return The delay in milliseconds. The default is 100.
+	 */
+	protected long getLoopDelay() {
+		return 100;
+	}
 	/**
 	 * Whether the task has completed.
 	 *
@@ -55,9 +64,12 @@ public abstract class AsyncTask implements Runnable {
 		onStart();
 		while(!stopped) {
 			onLoop();
-			try {
-				Thread.sleep(100);
-			} catch (Exception ignored) {
+			long delay = getLoopDelay();
+			if(delay > 0) {
+				try {
+					Thread.sleep(delay);
+				} catch (Exception ignored) {
+				}
 			}
 		}
 		onStop();
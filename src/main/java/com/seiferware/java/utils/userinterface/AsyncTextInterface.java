@@ -16,6 +16,7 @@ public class AsyncTextInterface implements ITextInterface {
 	protected ITextInterface inner;
 	protected Thread thread;
 	protected AsyncTask task;
+	protected volatile boolean pooledEvents = false;
 	/**
 	 * Creates the asynchronous wrapper.
 	 *
@@ -58,6 +59,16 @@ public class AsyncTextInterface implements ITextInterface {
 	public void sendLine(@NotNull String data) {
 		inner.sendLine(data);
 	}
+	/**
+	 * Sets whether {@link ReceiveTextEvent}s are taken from a per-thread pool, as described by {@link
+	 * ReceiveTextEvent#fire(Object, String, boolean)}. Off by default.
+	 *
+	 * @param pooled
+	 * 		{@code true} to fire pooled events.
+	 */
+	public void setPooledEvents(boolean pooled) {
+		this.pooledEvents = pooled;
+	}
 	/**
 	 * Begins the asynchronous operations.
 	 */
@@ -76,7 +87,7 @@ class LineReader extends AsyncTask {
 	@Override
 	public void onLoop() {
 		if(in.hasLineToRead()) {
-			new ReceiveTextEvent(owner, in.readLine()).fire();
+			ReceiveTextEvent.fire(owner, in.readLine(), owner.pooledEvents);
 		}
 	}
 	@Override
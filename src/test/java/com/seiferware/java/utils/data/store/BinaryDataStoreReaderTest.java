@@ -1,10 +1,24 @@
 package com.seiferware.java.utils.data.store;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.After;
 import org.junit.Before;
@@ -33,4 +47,112 @@ public class BinaryDataStoreReaderTest {
 		assertNotNull(test);
 		assertNotNull(test.getSubObject());
 	}
+	
+	@Test
+	public void testReadUtf8String() throws Exception {
+		BinaryDataStoreWriter writer = new BinaryDataStoreWriter();
+		writer.writeString("gr\u00fc\u00dfe", "\u65e5\u672c\u8a9e \u00e9t\u00e9");
+		writer.writeChar("symbol", '\u20ac');
+		writer.writeStringArray("list", new String[] {"\u00e5", "b"});
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.save(out);
+		BinaryDataStoreReader utf = new BinaryDataStoreReader(out.toByteArray());
+		assertEquals("\u65e5\u672c\u8a9e \u00e9t\u00e9", utf.readString("gr\u00fc\u00dfe"));
+		assertEquals('\u20ac', utf.readChar("symbol"));
+		assertEquals("\u00e5", utf.readStringArray("list")[0]);
+		assertNull(utf.readString("grusse", null));
+	}
+	
+	@Test
+	public void testReadProjection() throws Exception {
+		TestObject source = new TestObject();
+		source.setTestInt(7);
+		source.setSubObject(new TestObject());
+		source.getSubObject().setTestString("inner");
+		source.getSubObject().setTestInt(11);
+		BinaryDataStoreWriter writer = new BinaryDataStoreWriter();
+		writer.writeObject(source);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.save(out);
+		TestObject top = (TestObject)new BinaryDataStoreReader(out.toByteArray()).readObject(Collections.singleton("testInt"));
+		assertEquals(7, top.getTestInt());
+		assertNull(top.getSubObject());
+		TestObject nested = (TestObject)new BinaryDataStoreReader(out.toByteArray()).readObject(new HashSet<>(Arrays.asList("testInt", "subObject.testInt")));
+		assertEquals(11, nested.getSubObject().getTestInt());
+		assertEquals("test", nested.getSubObject().getTestString());
+		TestObject full = (TestObject)new BinaryDataStoreReader(out.toByteArray()).readObject();
+		assertEquals("inner", full.getSubObject().getTestString());
+	}
+	
+	@Test
+	public void testConcurrentCursors() throws Exception {
+		BinaryDataStoreWriter writer = new BinaryDataStoreWriter();
+		writer.createArray("items");
+		for(int i = 0; i < 1000; i++) {
+			writer.createArrayElement();
+			writer.writeInt("value", i);
+			writer.closeArrayElement();
+		}
+		writer.closeArray();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.save(out);
+		BinaryDataStoreReader shared = new BinaryDataStoreReader(out.toByteArray());
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Long>> sums = new ArrayList<>();
+			for(int t = 0; t < 8; t++) {
+				DataStoreReader cursor = shared.newCursor();
+				sums.add(pool.submit(() -> {
+					long sum = 0;
+					cursor.enterArray("items");
+					for(int i = 0; i < cursor.getArrayLength(); i++) {
+						cursor.enterArrayElement(i);
+						sum += cursor.readInt("value");
+						cursor.exitArrayElement();
+					}
+					cursor.exitArray();
+					return sum;
+				}));
+			}
+			for(Future<Long> sum : sums) {
+				assertEquals(499500L, sum.get().longValue());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void testReadValueCollections() throws Exception {
+		Inventory source = new Inventory();
+		for(int i = 0; i < 1000; i++) {
+			source.counts.add(i);
+		}
+		source.weights = new double[] {1.5, 2.5};
+		source.prices.put("sword", 100L);
+		source.prices.put("shield", 80L);
+		source.tags.add("rare");
+		BinaryDataStoreWriter writer = new BinaryDataStoreWriter();
+		writer.writeObject(source);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.save(out);
+		Inventory copy = (Inventory)new BinaryDataStoreReader(out.toByteArray()).readObject();
+		assertEquals(source.counts, copy.counts);
+		assertArrayEquals(source.weights, copy.weights, 0);
+		assertEquals(source.prices, copy.prices);
+		assertEquals(source.tags, copy.tags);
+		// One int per element, rather than one complex object per element.
+		assertTrue(out.size() < 5000);
+	}
+	
+	public static class Inventory {
+		@Storable
+		List<Integer> counts = new ArrayList<>();
+		@Storable
+		double[] weights;
+		@Storable
+		Map<String, Long> prices = new TreeMap<>();
+		@Storable
+		List<String> tags = new ArrayList<>();
+	}
 }
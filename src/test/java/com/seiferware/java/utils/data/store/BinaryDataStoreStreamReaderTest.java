@@ -0,0 +1,85 @@
+package com.seiferware.java.utils.data.store;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class BinaryDataStoreStreamReaderTest {
+	BinaryDataStoreWriter writer = null;
+	
+	@Before
+	public void setUp() throws Exception {
+		writer = new BinaryDataStoreWriter();
+		writer.writeInt("count", 2);
+		writer.createComplex("player");
+		writer.writeString("name", "Zeus");
+		writer.writeStringArray("titles", new String[] {"Mighty", "Thunderer"});
+		writer.closeComplex();
+		writer.createArray("items");
+		writer.createArrayElement();
+		writer.writeLong("id", 7L);
+		writer.closeArrayElement();
+		writer.createArrayElement();
+		writer.writeBoolean("equipped", true);
+		writer.closeArrayElement();
+		writer.closeArray();
+	}
+	
+	@After
+	public void tearDown() throws Exception {}
+	
+	@Test
+	public void testAccept() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.save(out);
+		StringBuilder log = new StringBuilder();
+		try (BinaryDataStoreStreamReader reader = new BinaryDataStoreStreamReader(new ByteArrayInputStream(out.toByteArray()))) {
+			reader.accept(new DataStoreVisitor() {
+				@Override
+				public void booleanValue(String name, boolean value) {
+					log.append(name).append('=').append(value).append(';');
+				}
+				@Override
+				public void end() {
+					log.append("end;");
+				}
+				@Override
+				public void intValue(String name, int value) {
+					log.append(name).append('=').append(value).append(';');
+				}
+				@Override
+				public void longValue(String name, long value) {
+					log.append(name).append('=').append(value).append(';');
+				}
+				@Override
+				public void startArray(String name) {
+					log.append("array ").append(name).append(';');
+				}
+				@Override
+				public void startArrayElement(int index) {
+					log.append("element ").append(index).append(';');
+				}
+				@Override
+				public void startComplex(String name) {
+					log.append("complex ").append(name).append(';');
+				}
+				@Override
+				public void stringArrayValue(String name, String[] value) {
+					log.append(name).append('=').append(String.join(",", value)).append(';');
+				}
+				@Override
+				public void stringValue(String name, String value) {
+					log.append(name).append('=').append(value).append(';');
+				}
+			});
+		}
+		assertEquals("count=2;complex player;name=Zeus;titles=Mighty,Thunderer;end;array items;element 0;id=7;end;element 1;equipped=true;end;end;", log.toString());
+	}
+}
@@ -0,0 +1,83 @@
+package com.seiferware.java.utils.data.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures point reads, writes and range scans of {@link LogStructuredStore} on local disk. Run it with the JMH runner
+ * from the test classpath, for example {@code java -cp <test classpath> org.openjdk.jmh.Main LogStructuredStoreBenchmark}.
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogStructuredStoreBenchmark {
+	@Param({"10000", "100000"})
+	public int keyCount;
+	File dir;
+	LogStructuredStore store;
+	private static BinaryDataStoreWriter document(int i) {
+		BinaryDataStoreWriter writer = new BinaryDataStoreWriter();
+		writer.writeString("name", "Player " + i);
+		writer.writeInt("level", i % 100);
+		writer.writeLong("experience", i * 1000L);
+		return writer;
+	}
+	private static String key(int i) {
+		return String.format("player%08d", i);
+	}
+	@Benchmark
+	public void pointRead(Blackhole bh) throws Exception {
+		bh.consume(store.read(key(ThreadLocalRandom.current().nextInt(keyCount))));
+	}
+	@Benchmark
+	public void rangeScan(Blackhole bh) {
+		int from = ThreadLocalRandom.current().nextInt(keyCount - 100);
+		store.scan(key(from), key(from + 100), (key, reader) -> bh.consume(reader));
+	}
+	@Setup
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("lsm-bench").toFile();
+		store = new LogStructuredStore(dir);
+		for(int i = 0; i < keyCount; i++) {
+			store.put(key(i), document(i));
+		}
+		store.flush();
+		store.compact();
+	}
+	@TearDown
+	public void tearDown() throws Exception {
+		store.close();
+		File[] files = dir.listFiles();
+		if(files != null) {
+			for(File f : files) {
+				f.delete();
+			}
+		}
+		dir.delete();
+	}
+	@Benchmark
+	public void write() throws Exception {
+		int i = ThreadLocalRandom.current().nextInt(keyCount);
+		store.put(key(i), document(i));
+	}
+}
@@ -0,0 +1,140 @@
+package com.seiferware.java.utils.data.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LogStructuredStoreTest {
+	File dir = null;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("lsm").toFile();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = dir.listFiles();
+		if(files != null) {
+			for(File f : files) {
+				f.delete();
+			}
+		}
+		dir.delete();
+	}
+
+	private BinaryDataStoreWriter counter(int value) {
+		BinaryDataStoreWriter writer = new BinaryDataStoreWriter();
+		writer.writeInt("value", value);
+		return writer;
+	}
+
+	private int segmentCount() {
+		File[] files = dir.listFiles((d, name) -> name.startsWith("segment-"));
+		return files == null ? 0 : files.length;
+	}
+
+	@Test
+	public void testPutAndReopen() throws Exception {
+		LogStructuredStore store = new LogStructuredStore(dir, 1 << 20, 4);
+		store.put("a", counter(1));
+		store.put("b", counter(2));
+		store.put("a", counter(3));
+		store.remove("b");
+		assertEquals(3, store.read("a").readInt("value"));
+		assertFalse(store.contains("b"));
+		// Reopening after the log was closed without writing a segment restores the changes from the log.
+		store.abandon();
+		store = new LogStructuredStore(dir, 1 << 20, 4);
+		assertEquals(3, store.read("a").readInt("value"));
+		assertFalse(store.contains("b"));
+		store.close();
+	}
+
+	@Test
+	public void testTornLog() throws Exception {
+		LogStructuredStore store = new LogStructuredStore(dir, 1 << 20, 4);
+		store.put("a", counter(1));
+		store.abandon();
+		try (FileOutputStream out = new FileOutputStream(new File(dir, "wal.log"), true)) {
+			// A change whose value was only partially written: key "b", followed by a length of 1000 bytes.
+			out.write(new byte[] { 0, 1, 'b', 0, 0, 3, (byte) 0xE8, 1, 2, 3 });
+		}
+		store = new LogStructuredStore(dir, 1 << 20, 4);
+		assertFalse(store.contains("b"));
+		store.put("c", counter(3));
+		store.abandon();
+		store = new LogStructuredStore(dir, 1 << 20, 4);
+		assertEquals(1, store.read("a").readInt("value"));
+		assertEquals("A change made after the torn entry should survive.", 3, store.read("c").readInt("value"));
+		assertFalse(store.contains("b"));
+		store.close();
+	}
+
+	@Test
+	public void testSegmentsAndCompaction() throws Exception {
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		try (LogStructuredStore store = new LogStructuredStore(dir, 256, 100)) {
+			for(int i = 0; i < 500; i++) {
+				String key = String.format("key%04d", i % 200);
+				store.put(key, counter(i));
+				expected.put(key, i);
+				if(i % 7 == 0) {
+					String removed = String.format("key%04d", (i + 3) % 200);
+					store.remove(removed);
+					expected.remove(removed);
+				}
+			}
+			store.flush();
+			store.compact();
+			assertEquals("Compaction should leave a single segment.", 1, segmentCount());
+			assertEquals(499, store.read("key0099").readInt("value"));
+			assertEquals(400, store.read("key0000").readInt("value"));
+			List<String> keys = new ArrayList<>();
+			store.scan("key0010", "key0020", (key, reader) -> keys.add(key));
+			assertEquals(new ArrayList<>(expected.subMap("key0010", "key0020").keySet()), keys);
+		}
+		try (LogStructuredStore store = new LogStructuredStore(dir)) {
+			assertEquals(399, store.read("key0199").readInt("value"));
+			List<Integer> values = new ArrayList<>();
+			store.scan(null, null, (key, reader) -> values.add(reader.readInt("value", -1)));
+			assertEquals(new ArrayList<>(expected.values()), values);
+		}
+	}
+
+	@Test
+	public void testCompactionWhileScanning() throws Exception {
+		try (LogStructuredStore store = new LogStructuredStore(dir, 1 << 20, 100)) {
+			for(int i = 0; i < 4; i++) {
+				store.put("key" + i, counter(i));
+				store.flush();
+			}
+			List<Integer> values = new ArrayList<>();
+			store.scan(null, null, (key, reader) -> {
+				if(values.isEmpty()) {
+					try {
+						store.compact();
+					} catch (Exception e) {
+						throw new AssertionError(e);
+					}
+					assertEquals("Segments being scanned should not be deleted.", 5, segmentCount());
+				}
+				values.add(reader.readInt("value", -1));
+			});
+			assertEquals(Arrays.asList(0, 1, 2, 3), values);
+			assertEquals(1, segmentCount());
+		}
+	}
+}
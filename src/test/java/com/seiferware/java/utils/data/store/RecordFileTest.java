@@ -0,0 +1,122 @@
+package com.seiferware.java.utils.data.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RecordFileTest {
+	File file = null;
+	
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("records", ".dat");
+		file.delete();
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		file.delete();
+	}
+	
+	private BinaryDataStoreWriter player(String name, int level) {
+		BinaryDataStoreWriter writer = new BinaryDataStoreWriter();
+		writer.writeString("name", name);
+		writer.writeInt("level", level);
+		return writer;
+	}
+	
+	@Test
+	public void testWriteAndRead() throws Exception {
+		try (RecordFile records = new RecordFile(file)) {
+			records.write("zeus", player("Zeus", 99));
+			RecordFile.Batch batch = records.newBatch();
+			batch.write("hera", player("Hera", 80));
+			batch.write("ares", player("Ares", 40));
+			assertEquals(2, batch.commit());
+			records.write("ares", player("Ares", 41));
+			assertTrue(records.getWastedBytes() > 0);
+		}
+		try (RecordFile records = new RecordFile(file)) {
+			assertEquals(3, records.size());
+			assertEquals("Hera", records.read("hera").readString("name"));
+			assertEquals(41, records.read("ares").readInt("level"));
+			assertTrue(records.remove("zeus"));
+			assertFalse(records.contains("zeus"));
+		}
+	}
+	
+	@Test
+	public void testShrinkingIndex() throws Exception {
+		try (RecordFile records = new RecordFile(file)) {
+			RecordFile.Batch batch = records.newBatch();
+			for(int i = 0; i < 50; i++) {
+				batch.write("player" + i, player("Player " + i, i));
+			}
+			batch.commit();
+			for(int i = 0; i < 49; i++) {
+				batch.remove("player" + i);
+			}
+			batch.write("hades", player("Hades", 70));
+			assertEquals(50, batch.commit());
+		}
+		try (RecordFile records = new RecordFile(file)) {
+			assertEquals("A smaller index should replace the larger one.", 2, records.size());
+			assertEquals(49, records.read("player49").readInt("level"));
+			assertEquals("Hades", records.read("hades").readString("name"));
+			assertTrue(records.getWastedBytes() > 0);
+			records.compact();
+			assertEquals(0, records.getWastedBytes());
+		}
+	}
+	
+	@Test
+	public void testCompact() throws Exception {
+		try (RecordFile records = new RecordFile(file)) {
+			for(int i = 0; i < 10; i++) {
+				records.write("player" + (i % 3), player("Player " + i, i));
+			}
+			long before = file.length();
+			records.compact();
+			assertEquals(0, records.getWastedBytes());
+			assertTrue(file.length() < before);
+			assertEquals(9, records.read("player0").readInt("level"));
+			try {
+				records.read("player3");
+				fail("A missing record should not be readable.");
+			} catch (EntryNotFoundException ignored) {
+			}
+		}
+	}
+	
+	@Test
+	public void testTornAppend() throws Exception {
+		try (RecordFile records = new RecordFile(file)) {
+			records.write("zeus", player("Zeus", 99));
+			records.write("hera", player("Hera", 80));
+		}
+		long length = file.length();
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			// The start of a record and an index, as left behind by a crash in the middle of a commit.
+			out.write(new byte[] { 0, 0, 0, 20, 1, 2, 3, 0x53, 0x57, 0x4A, 0x52, 0, 0, 0, 1, 0, 4 });
+		}
+		try (RecordFile records = new RecordFile(file)) {
+			assertEquals("The incomplete append should be discarded.", length, file.length());
+			assertEquals(2, records.size());
+			records.write("ares", player("Ares", 40));
+		}
+		try (RecordFile records = new RecordFile(file)) {
+			assertEquals(3, records.size());
+			assertEquals(99, records.read("zeus").readInt("level"));
+			assertEquals("Ares", records.read("ares").readString("name"));
+		}
+	}
+}
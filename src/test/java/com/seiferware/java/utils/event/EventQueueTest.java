@@ -0,0 +1,167 @@
+package com.seiferware.java.utils.event;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@SuppressWarnings("javadoc")
+public class EventQueueTest {
+	
+	private static List<Integer> drain(EventQueue<NumberEvent, Object> queue) {
+		List<Integer> res = new ArrayList<>();
+		queue.drainTo(e -> res.add(e.getNumber()), Integer.MAX_VALUE);
+		return res;
+	}
+	
+	@Test
+	public void testUnbounded() {
+		Object source = new Object();
+		EventQueue<NumberEvent, Object> queue = new EventQueue<>(NumberEvent.class, Object.class);
+		Event.addListener(source, queue);
+		for(int i = 0; i < 200; i++) {
+			new NumberEvent(source, i).fire();
+		}
+		new Event(source).fire();
+		assertEquals("Unbounded queues should keep every matching event.", 200, queue.size());
+		assertEquals("Events should be removed oldest first.", 0, queue.poll().getNumber());
+		List<Integer> batch = new ArrayList<>();
+		assertEquals("drainTo should stop at the batch size.", 10, queue.drainTo(e -> batch.add(e.getNumber()), 10));
+		assertEquals("Batches should continue from the head of the queue.", Integer.valueOf(1), batch.get(0));
+		assertEquals(189, drain(queue).size());
+		assertNull(queue.poll());
+	}
+	
+	@Test
+	public void testOverflowPolicies() {
+		Object source = new Object();
+		EventQueue<NumberEvent, Object> newest = new EventQueue<>(NumberEvent.class, Object.class, 3, EventQueue.OverflowPolicy.DROP_NEWEST);
+		EventQueue<NumberEvent, Object> oldest = new EventQueue<>(NumberEvent.class, Object.class, 3, EventQueue.OverflowPolicy.DROP_OLDEST);
+		EventQueue<NumberEvent, Object> coalesce = new EventQueue<>(NumberEvent.class, Object.class, 3, EventQueue.OverflowPolicy.COALESCE);
+		for(int i = 0; i < 5; i++) {
+			newest.offer(new NumberEvent(source, i));
+			oldest.offer(new NumberEvent(source, i));
+			coalesce.offer(new NumberEvent(source, i));
+		}
+		assertEquals("[0, 1, 2]", drain(newest).toString());
+		assertEquals(2, newest.getDroppedCount());
+		assertEquals("[2, 3, 4]", drain(oldest).toString());
+		assertEquals(2, oldest.getDroppedCount());
+		assertEquals("[0, 1, 4]", drain(coalesce).toString());
+		assertEquals(0, coalesce.getDroppedCount());
+	}
+	
+	@Test
+	public void testCoalescingEvents() {
+		Object source = new Object();
+		EventQueue<NumberEvent, Object> queue = new EventQueue<>(NumberEvent.class, Object.class);
+		queue.offer(new NumberEvent(source, 1));
+		queue.offer(new SumEvent(source, "a", 2));
+		queue.offer(new SumEvent(source, "b", 3));
+		queue.offer(new SumEvent(source, "a", 4));
+		queue.offer(new NumberEvent(source, 5));
+		assertEquals("Coalescing events should be merged in the place of the pending event.", "[1, 6, 3, 5]", drain(queue).toString());
+		queue.offer(new SumEvent(source, "a", 7));
+		assertEquals("Handled events should not be merged with new ones.", "[7]", drain(queue).toString());
+	}
+	
+	@Test
+	public void testTimeBudget() {
+		Object source = new Object();
+		EventQueue<NumberEvent, Object> queue = new EventQueue<>(NumberEvent.class, Object.class);
+		for(int i = 0; i < 100; i++) {
+			queue.offer(new NumberEvent(source, i));
+		}
+		assertEquals("A spent budget should handle nothing.", 0, queue.drainTo(e -> {
+		}, 100, 0, TimeUnit.MILLISECONDS));
+		int handled = queue.drainTo(e -> {
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException ignored) {
+			}
+		}, 100, 20, TimeUnit.MILLISECONDS);
+		assertTrue("The drain should stop once the budget is spent.", handled >= 1 && handled <= 5);
+		assertEquals(100 - handled, queue.size());
+	}
+	
+	@Test
+	public void testDrainerWeights() {
+		Object source = new Object();
+		EventQueue<NumberEvent, Object> heavy = new EventQueue<>(NumberEvent.class, Object.class);
+		EventQueue<NumberEvent, Object> light = new EventQueue<>(NumberEvent.class, Object.class);
+		for(int i = 0; i < 10; i++) {
+			heavy.offer(new NumberEvent(source, i));
+			light.offer(new NumberEvent(source, 100 + i));
+		}
+		List<Integer> order = new ArrayList<>();
+		EventQueueDrainer drainer = new EventQueueDrainer();
+		drainer.add(heavy, e -> order.add(e.getNumber()), 2);
+		drainer.add(light, e -> order.add(e.getNumber()));
+		EventQueueDrainer.Result result = drainer.drain(1, TimeUnit.SECONDS, 6);
+		assertEquals("Queues should be served in proportion to their weights.", "[0, 1, 100, 2, 3, 101]", order.toString());
+		assertEquals(6, result.getHandled());
+		assertEquals(14, result.getPending());
+		result = drainer.drain(1, TimeUnit.SECONDS, Integer.MAX_VALUE);
+		assertEquals(14, result.getHandled());
+		assertEquals(0, result.getPending());
+	}
+	
+	@Test
+	public void testBlocking() throws Exception {
+		Object source = new Object();
+		EventQueue<NumberEvent, Object> queue = new EventQueue<>(NumberEvent.class, Object.class, 2, EventQueue.OverflowPolicy.BLOCK);
+		assertNull("poll should time out on an empty queue.", queue.poll(10, TimeUnit.MILLISECONDS));
+		Thread producer = new Thread(() -> {
+			for(int i = 0; i < 100; i++) {
+				queue.offer(new NumberEvent(source, i));
+			}
+		});
+		producer.start();
+		for(int i = 0; i < 100; i++) {
+			assertEquals("Blocked producers should deliver every event in order.", i, queue.take().getNumber());
+		}
+		producer.join();
+		assertEquals(0, queue.getDroppedCount());
+	}
+	
+	@Test
+	public void testBlockingDrainerFires() {
+		Object source = new Object();
+		EventQueue<NumberEvent, Object> queue = new EventQueue<>(NumberEvent.class, Object.class, 1, EventQueue.OverflowPolicy.BLOCK);
+		Event.addListener(source, queue);
+		try {
+			new NumberEvent(source, 0).fire();
+			List<Integer> handled = new ArrayList<>();
+			queue.drainTo(e -> {
+				handled.add(e.getNumber());
+				new NumberEvent(source, 1).fire();
+				new NumberEvent(source, 2).fire();
+			}, 1);
+			assertEquals("[0]", handled.toString());
+			assertEquals("The drainer should not wait for itself on a full queue.", 1, queue.getDroppedCount());
+			assertEquals(1, queue.queue.poll().getNumber());
+			assertTrue(queue.queue.isEmpty());
+		} finally {
+			Event.removeListener(source, queue);
+		}
+	}
+	
+	public static class SumEvent extends NumberEvent implements CoalescingEvent {
+		private final String key;
+		public SumEvent(Object target, String key, int number) {
+			super(target, number);
+			this.key = key;
+		}
+		@Override
+		public Event coalesce(Event pending) {
+			return new SumEvent(getTarget(), key, getNumber() + ((SumEvent) pending).getNumber());
+		}
+		@Override
+		public Object getCoalescingKey() {
+			return key;
+		}
+	}
+}
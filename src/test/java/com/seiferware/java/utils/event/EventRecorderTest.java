@@ -0,0 +1,154 @@
+package com.seiferware.java.utils.event;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+@SuppressWarnings("javadoc")
+public class EventRecorderTest {
+	File file = null;
+	
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("events", ".log");
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		Event.setRecorder(null);
+		file.delete();
+	}
+	
+	@Test
+	public void testRecordAndReplay() throws Exception {
+		Object[] targets = {new Object(), new Object()};
+		try (EventRecorder recorder = new EventRecorder(file, t -> t == targets[0] ? 0 : 1, 4096, 64)) {
+			recorder.register(NumberEvent.class, NumberEvent.CODEC);
+			Event.setRecorder(recorder);
+			for(int i = 0; i < 1000; i++) {
+				new NumberEvent(targets[i % 2], i).fire();
+			}
+			new Event(targets[0]).fire();
+			Event.setRecorder(null);
+			new NumberEvent(targets[0], -1).fire();
+			assertEquals("Only registered classes should be recorded.", 1000, recorder.getRecordedCount());
+		}
+		List<Integer> numbers = new ArrayList<>();
+		Object[] replayed = {new Object(), new Object()};
+		Event.addListener(replayed[1], new Object() {
+			@Listener
+			public void onNumber(NumberEvent event, Object target) {
+				numbers.add(event.getNumber());
+			}
+		});
+		try (EventReplayer replayer = new EventReplayer(file)) {
+			replayer.register(NumberEvent.class, NumberEvent.CODEC);
+			assertEquals(1000, replayer.replay(id -> replayed[(int) id], 0));
+		}
+		assertEquals("Events should be replayed on the target with their recorded id.", 500, numbers.size());
+		assertEquals(Integer.valueOf(1), numbers.get(0));
+		assertEquals(Integer.valueOf(999), numbers.get(499));
+	}
+	
+	@Test
+	public void testOversizedEvents() throws Exception {
+		Object source = new Object();
+		try (EventRecorder recorder = new EventRecorder(file, t -> 0, 4096, 64)) {
+			recorder.register(NumberEvent.class, new EventCodec<NumberEvent>() {
+				@Override
+				public NumberEvent decode(Object target, ByteBuffer in) {
+					return new NumberEvent(target, in.getInt());
+				}
+				@Override
+				public void encode(NumberEvent event, ByteBuffer out) {
+					for(int i = 0; i < event.getNumber(); i++) {
+						out.putInt(event.getNumber());
+					}
+				}
+			});
+			Event.setRecorder(recorder);
+			new NumberEvent(source, 10).fire();
+			new NumberEvent(source, 100).fire();
+			new NumberEvent(source, 11).fire();
+			assertEquals(2, recorder.getRecordedCount());
+			assertEquals("Events larger than the maximum record size should be dropped.", 1, recorder.getDroppedCount());
+		}
+	}
+	
+	@Test
+	public void testFailingRecorder() throws Exception {
+		Object source = new Object();
+		Object unknown = new Object();
+		List<Integer> numbers = new ArrayList<>();
+		Object listener = new Object() {
+			@Listener
+			public void onNumber(NumberEvent event, Object target) {
+				numbers.add(event.getNumber());
+			}
+		};
+		Event.addListener(source, listener);
+		Event.addListener(unknown, listener);
+		try (EventRecorder recorder = new EventRecorder(file, t -> {
+			if(t == unknown) {
+				throw new IllegalArgumentException("No id for this target.");
+			}
+			return 0;
+		}, 4096, 64)) {
+			recorder.register(NumberEvent.class, new EventCodec<NumberEvent>() {
+				@Override
+				public NumberEvent decode(Object target, ByteBuffer in) {
+					return new NumberEvent(target, in.getInt());
+				}
+				@Override
+				public void encode(NumberEvent event, ByteBuffer out) {
+					if(event.getNumber() < 0) {
+						throw new IllegalStateException("Cannot encode negative numbers.");
+					}
+					out.putInt(event.getNumber());
+				}
+			});
+			Event.setRecorder(recorder);
+			new NumberEvent(source, 1).fire();
+			new NumberEvent(source, -2).fire();
+			new NumberEvent(unknown, 3).fire();
+			new NumberEvent(source, 4).fire();
+			assertEquals("Listeners should receive events the recorder failed on.", "[1, -2, 3, 4]", numbers.toString());
+			assertEquals(2, recorder.getRecordedCount());
+			assertEquals(2, recorder.getDroppedCount());
+		} finally {
+			Event.removeListener(source, listener);
+			Event.removeListener(unknown, listener);
+		}
+	}
+	
+	@Test
+	public void testReplaySpeed() throws Exception {
+		Object source = new Object();
+		try (EventRecorder recorder = new EventRecorder(file, t -> 0)) {
+			recorder.register(NumberEvent.class, NumberEvent.CODEC);
+			Event.setRecorder(recorder);
+			Thread.sleep(200);
+			new NumberEvent(source, 1).fire();
+			Thread.sleep(100);
+			new NumberEvent(source, 2).fire();
+		}
+		try (EventReplayer replayer = new EventReplayer(file)) {
+			replayer.register(NumberEvent.class, NumberEvent.CODEC);
+			long start = System.nanoTime();
+			assertEquals(2, replayer.replay(id -> source, 1));
+			long elapsed = System.nanoTime() - start;
+			assertTrue("Events should keep their original spacing.", elapsed >= 90000000L);
+			assertTrue("The time before the first event should not be waited out.", elapsed < 250000000L);
+			start = System.nanoTime();
+			assertEquals(2, replayer.replay(id -> source, 1000));
+			assertTrue("Faster replays should shorten the spacing.", System.nanoTime() - start < 90000000L);
+		}
+	}
+}
@@ -1,13 +1,32 @@
 package com.seiferware.java.utils.event;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
+import com.seiferware.java.utils.event.userinterface.ReceiveTextEvent;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SuppressWarnings("javadoc")
 public class EventTest {
@@ -62,6 +81,354 @@ public class EventTest {
 		assertNull("Event should not trigger if target type doesn't match.", listener.getValue3());
 	}
 	
+	@Test
+	public void testPublicListener() {
+		Object source = new Object();
+		PublicEventListener pub = new PublicEventListener();
+		Event.addListener(source, pub);
+		new Event(source).fire();
+		new Event(source).fire();
+		assertEquals("Public listener methods should be called once per event.", 2, pub.getCount());
+	}
+	
+	@Test
+	public void testStaticListener() {
+		Object source = new Object();
+		StaticEventListener.calls.set(0);
+		Event.addListener(source, new StaticEventListener());
+		new Event(source).fire();
+		assertEquals("Public and private static listener methods should both be called.", 2, StaticEventListener.calls.get());
+	}
+	
+	@Test
+	public void testConcurrentRegistration() throws Exception {
+		Object source = new Object();
+		PublicEventListener stable = new PublicEventListener();
+		Event.addListener(source, stable);
+		AtomicBoolean done = new AtomicBoolean(false);
+		List<Throwable> errors = new CopyOnWriteArrayList<>();
+		Thread churn = new Thread(() -> {
+			try {
+				while(!done.get()) {
+					PublicEventListener temp = new PublicEventListener();
+					Event.addListener(source, temp);
+					Event.removeListener(source, temp);
+				}
+			} catch (Throwable e) {
+				errors.add(e);
+			}
+		});
+		churn.start();
+		try {
+			for(int i = 0; i < 20000; i++) {
+				new Event(source).fire();
+			}
+		} finally {
+			done.set(true);
+			churn.join();
+		}
+		assertTrue("Changing listeners while firing should not throw.", errors.isEmpty());
+		assertEquals("A listener registered throughout should receive every event.", 20000, stable.getCount());
+	}
+	
+	@Test
+	public void testWeakReferences() throws Exception {
+		Event.setWeakReferences(true);
+		try {
+			Object source = new Object();
+			PublicEventListener kept = new PublicEventListener();
+			Event.addListener(source, kept);
+			PublicEventListener dropped = new PublicEventListener();
+			Event.addListener(source, dropped);
+			WeakReference<Object> droppedRef = new WeakReference<>(dropped);
+			dropped = null;
+			Object lostSource = new Object();
+			Event.addListener(lostSource, kept);
+			WeakReference<Object> lostSourceRef = new WeakReference<>(lostSource);
+			lostSource = null;
+			for(int i = 0; i < 50 && (droppedRef.get() != null || lostSourceRef.get() != null); i++) {
+				System.gc();
+				Thread.sleep(10);
+			}
+			assertNull("The registry should not keep listeners reachable.", droppedRef.get());
+			assertNull("The registry should not keep targets reachable.", lostSourceRef.get());
+			new Event(source).fire();
+			assertEquals("Reachable listeners should still receive events.", 1, kept.getCount());
+		} finally {
+			Event.setWeakReferences(false);
+		}
+		new Event(target).fire();
+		assertEquals("Listeners should be carried over when the mode changes.", target.getValue(), listener.getValue2());
+	}
+	
+	@Test
+	public void testFireAsync() throws Exception {
+		Object first = new Object();
+		Object second = new Object();
+		OrderListener order = new OrderListener();
+		Event.addListener(first, order);
+		Event.addListener(second, order);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		Event.setAsyncExecutor(executor);
+		try {
+			List<CompletableFuture<Event>> futures = new ArrayList<>();
+			for(int i = 0; i < 200; i++) {
+				futures.add(new SequenceEvent(i % 2 == 0 ? first : second, i).fireAsync());
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+			assertSame("The future should complete with the event.", first, futures.get(0).get().getTarget());
+		} finally {
+			Event.setAsyncExecutor(null);
+			executor.shutdown();
+		}
+		assertEquals("Every event should be fired once.", 200, order.getCount());
+		assertTrue("Events with the same target should be fired in order.", order.isOrdered());
+	}
+	
+	@Test
+	public void testCoalescingAsync() throws Exception {
+		Object source = new Object();
+		OrderListener order = new OrderListener();
+		Event.addListener(source, order);
+		CountDownLatch release = new CountDownLatch(1);
+		Event.setAsyncExecutor(task -> new Thread(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException ignored) {
+			}
+			task.run();
+		}).start());
+		try {
+			CompletableFuture<Event> first = new LatestEvent(source, 1).fireAsync();
+			CompletableFuture<Event> second = new LatestEvent(source, 2).fireAsync();
+			release.countDown();
+			assertSame("Coalesced events should share a future.", first, second);
+			assertEquals(2, ((SequenceEvent) first.get(10, TimeUnit.SECONDS)).getSequence());
+		} finally {
+			Event.setAsyncExecutor(null);
+		}
+		assertEquals("Coalesced events should be fired once.", 1, order.getCount());
+	}
+	
+	@Test
+	public void testRejectedCoalescingAsync() throws Exception {
+		Object source = new Object();
+		OrderListener order = new OrderListener();
+		Event.addListener(source, order);
+		Event.setAsyncExecutor(task -> {
+			throw new RejectedExecutionException();
+		});
+		try {
+			CompletableFuture<Event> rejected = new LatestEvent(source, 1).fireAsync();
+			assertTrue(rejected.isCompletedExceptionally());
+			Event.setAsyncExecutor(Runnable::run);
+			CompletableFuture<Event> later = new LatestEvent(source, 2).fireAsync();
+			assertNotSame("Events should not be combined with a rejected one.", rejected, later);
+			assertEquals(2, ((SequenceEvent) later.get(10, TimeUnit.SECONDS)).getSequence());
+		} finally {
+			Event.setAsyncExecutor(null);
+		}
+		assertEquals(1, order.getCount());
+	}
+	
+	@Test
+	public void testPooledEvents() {
+		Object source = new Object();
+		TextListener text = new TextListener();
+		Event.addListener(source, text);
+		for(int i = 0; i < 10; i++) {
+			ReceiveTextEvent.fire(source, "line " + i, true);
+		}
+		assertEquals("line 9", text.getLast());
+		assertEquals("Pooled events should be reused once dispatch finishes.", 1, text.getInstances());
+		EventQueue<ReceiveTextEvent, Object> queue = new EventQueue<>(ReceiveTextEvent.class, Object.class);
+		Event.addListener(source, queue);
+		ReceiveTextEvent.fire(source, "first", true);
+		ReceiveTextEvent.fire(source, "second", true);
+		assertEquals("Queued events should not be recycled.", "first", queue.poll().getText());
+		assertEquals("second", queue.poll().getText());
+		Event.removeListener(source, queue);
+	}
+	
+	@Test
+	public void testPooledEventAllocation() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue("Allocation can only be measured on HotSpot.", bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		Object source = new Object();
+		Event.addListener(source, new TextListener());
+		long id = Thread.currentThread().getId();
+		for(int i = 0; i < 20000; i++) {
+			ReceiveTextEvent.fire(source, "line", true);
+		}
+		long before = threads.getThreadAllocatedBytes(id);
+		for(int i = 0; i < 100000; i++) {
+			ReceiveTextEvent.fire(source, "line", true);
+		}
+		long bytes = threads.getThreadAllocatedBytes(id) - before;
+		assertTrue("Firing pooled events should not allocate, but " + bytes + " bytes were allocated.", bytes < 100000);
+	}
+	
+	@Test
+	public void testBubbling() {
+		for(boolean stable : new boolean[] {false, true}) {
+			Node root = new Node(null, stable);
+			Node node = root;
+			for(int i = 0; i < 20000; i++) {
+				node = new Node(node, stable);
+			}
+			Node middle = new Node(node, stable);
+			Node leaf = new Node(new Node(middle, stable), stable);
+			PublicEventListener rootListener = new PublicEventListener();
+			PublicEventListener middleListener = new PublicEventListener();
+			Event.addListener(root, rootListener);
+			Event.addListener(middle, middleListener);
+			new Event(leaf).fire();
+			assertEquals("Events should bubble through deep chains.", 1, rootListener.getCount());
+			assertEquals(1, middleListener.getCount());
+			CancelListener cancel = new CancelListener();
+			Event.addListener(middle, cancel);
+			new Event(leaf).fire();
+			assertEquals("Cancelled events should not bubble further.", 1, rootListener.getCount());
+			assertEquals(2, middleListener.getCount());
+			Event.removeListener(middle, cancel);
+			new Event(leaf).fire();
+			assertEquals("Bubble chains should follow listener changes.", 2, rootListener.getCount());
+		}
+	}
+	
+	@Test
+	public void testBubbleChainCache() {
+		BubbleChains cache = new BubbleChains();
+		ListenerRegistry registry = new ListenerRegistry.Strong();
+		Node root = new Node(null, true);
+		Node leaf = new Node(new Node(root, true), true);
+		registry.add(root, new TextListener());
+		BubbleChains.Chain chain = cache.get(leaf, registry);
+		assertEquals("Targets without methods for the event class should be skipped.", 0, chain.listening(Event.class).length);
+		assertArrayEquals(new int[] {2}, chain.listening(ReceiveTextEvent.class));
+		registry.add(new Object(), new TextListener());
+		assertSame("Listener changes outside the chain should not rebuild it.", chain, cache.get(leaf, registry));
+		registry.add(leaf, new PublicEventListener());
+		chain = cache.get(leaf, registry);
+		assertArrayEquals(new int[] {0}, chain.listening(Event.class));
+		assertArrayEquals(new int[] {0, 2}, chain.listening(ReceiveTextEvent.class));
+	}
+	
+	@Test
+	public void testEventTypeFilter() {
+		Object source = new Object();
+		PublicEventListener pub = new PublicEventListener();
+		Event.addListener(source, pub);
+		new Event(source).fire();
+		new SubEvent(source).fire();
+		new Event(source).fire();
+		assertEquals("Listeners for a base event type should receive subclass events.", 3, pub.getCount());
+		assertEquals("Listeners for an event subclass should not receive base events.", 1, pub.getSubCount());
+	}
+	
+	@Test
+	public void testTargetTypeFilter() {
+		Node root = new Node(null, false);
+		LeafNode leaf = new LeafNode(root);
+		TargetTypeListener listener = new TargetTypeListener();
+		Event.addListener(root, listener);
+		new Event(root).fire();
+		new Event(leaf).fire();
+		new Event(root).fire();
+		assertEquals("Listeners for a base target type should receive events from subclass targets.", 3, listener.nodes);
+		assertEquals("Listeners for a target subclass should only receive events from that subclass.", 1, listener.leaves);
+	}
+	
+	@Test
+	public void testListenerIndexUpdates() {
+		Object source = new Object();
+		PublicEventListener first = new PublicEventListener();
+		OrderListener order = new OrderListener();
+		Event.addListener(source, first);
+		Event.addListener(source, order);
+		Event.addListener(source, new TextListener());
+		new SubEvent(source).fire();
+		new SequenceEvent(source, 1).fire();
+		PublicEventListener second = new PublicEventListener();
+		Event.addListener(source, second);
+		new SubEvent(source).fire();
+		Event.removeListener(source, first);
+		new SubEvent(source).fire();
+		assertEquals("Removed listeners should not receive events.", 2, first.getSubCount());
+		assertEquals("Listeners added after an event class was fired should receive it.", 2, second.getSubCount());
+		assertEquals("Listeners should only receive matching events.", 1, order.getCount());
+		assertEquals("Listeners for a base event type should receive every event class fired on the target.", 3, first.getCount());
+	}
+	
+	@Test
+	public void testExceptionHandler() {
+		Object source = new Object();
+		Event.addListener(source, new ThrowingEventListener());
+		List<Throwable> caught = new ArrayList<>();
+		Event.setExceptionHandler((e, l, ex) -> caught.add(ex));
+		try {
+			new Event(source).fire();
+		} finally {
+			Event.setExceptionHandler(null);
+		}
+		assertEquals("Listener exceptions should reach the exception handler.", 1, caught.size());
+		assertEquals("The handler should receive the listener's own exception.", "Listener failed", caught.get(0).getMessage());
+	}
+	
+	@Test
+	public void testDispatchMonitor() {
+		Object source = new Object();
+		PublicEventListener pub = new PublicEventListener();
+		Event.addListener(source, pub);
+		Event.addListener(source, new ThrowingEventListener());
+		List<String> slow = new ArrayList<>();
+		DispatchMonitor monitor = new DispatchMonitor(0, TimeUnit.NANOSECONDS, (e, l, method, nanos) -> slow.add(method));
+		Event.setExceptionHandler((e, l, ex) -> {
+		});
+		Event.setDispatchMonitor(monitor);
+		try {
+			for(int i = 0; i < 10; i++) {
+				new SubEvent(source).fire();
+			}
+			Event.setDispatchMonitor(null);
+			new SubEvent(source).fire();
+		} finally {
+			Event.setDispatchMonitor(null);
+			Event.setExceptionHandler(null);
+		}
+		List<ListenerStatistics> stats = monitor.snapshot();
+		assertEquals("Each listener method should be measured separately.", 3, stats.size());
+		for(ListenerStatistics s : stats) {
+			assertSame(SubEvent.class, s.getEventClass());
+			assertEquals("Calls made after the monitor was removed should not be counted.", 10, s.getCalls());
+			assertEquals(s.getMethod().contains("ThrowingEventListener") ? 10 : 0, s.getFailures());
+			assertTrue(s.getPercentileNanos(0.5) <= s.getMaxNanos());
+		}
+		assertEquals("Every call should exceed a zero threshold.", 30, slow.size());
+		assertEquals(11, pub.getSubCount());
+	}
+	
+	@Test
+	public void testSlowHandlerFailure() {
+		Object source = new Object();
+		Event.addListener(source, new ThrowingEventListener());
+		List<Throwable> handled = new ArrayList<>();
+		Event.setExceptionHandler((e, l, ex) -> handled.add(ex));
+		Event.setDispatchMonitor(new DispatchMonitor(0, TimeUnit.NANOSECONDS, (e, l, method, nanos) -> {
+			throw new IllegalArgumentException("Handler failed");
+		}));
+		try {
+			new Event(source).fire();
+		} finally {
+			Event.setDispatchMonitor(null);
+			Event.setExceptionHandler(null);
+		}
+		assertEquals(1, handled.size());
+		assertTrue("The listener's exception should not be replaced.", handled.get(0) instanceof IllegalStateException);
+		assertTrue(handled.get(0).getSuppressed()[0] instanceof IllegalArgumentException);
+	}
+	
 	@Test
 	public void testRemoveListener() {
 		Event.removeListener(target, listener);
@@ -109,4 +476,148 @@ public class EventTest {
 			value3 = target;
 		}
 	}
+	
+	public static class PublicEventListener {
+		private int count = 0;
+		private int subCount = 0;
+		public int getCount() {
+			return count;
+		}
+		public int getSubCount() {
+			return subCount;
+		}
+		@Listener
+		public void handleEvent(Event event, Object target) {
+			count++;
+		}
+		@Listener
+		public void handleSubEvent(SubEvent event, Object target) {
+			subCount++;
+		}
+	}
+	
+	public static class StaticEventListener {
+		static final AtomicInteger calls = new AtomicInteger();
+		@Listener
+		private static void handleHidden(Event event, Object target) {
+			calls.incrementAndGet();
+		}
+		@Listener
+		public static void handleEvent(Event event, Object target) {
+			calls.incrementAndGet();
+		}
+	}
+	
+	private static class ThrowingEventListener {
+		@Listener
+		private void handleEvent(Event event, Object target) {
+			throw new IllegalStateException("Listener failed");
+		}
+	}
+	
+	public static class SubEvent extends Event {
+		public SubEvent(Object target) {
+			super(target);
+		}
+	}
+	
+	public static class SequenceEvent extends Event {
+		private final int sequence;
+		public SequenceEvent(Object target, int sequence) {
+			super(target);
+			this.sequence = sequence;
+		}
+		public int getSequence() {
+			return sequence;
+		}
+	}
+	
+	public static class OrderListener {
+		private final Map<Object, Integer> last = new ConcurrentHashMap<>();
+		private final AtomicInteger count = new AtomicInteger();
+		private volatile boolean ordered = true;
+		public int getCount() {
+			return count.get();
+		}
+		public boolean isOrdered() {
+			return ordered;
+		}
+		@Listener
+		public void handleEvent(SequenceEvent event, Object target) {
+			Integer previous = last.put(target, event.getSequence());
+			if(previous != null && previous > event.getSequence()) {
+				ordered = false;
+			}
+			count.incrementAndGet();
+		}
+	}
+	
+	public static class LatestEvent extends SequenceEvent implements CoalescingEvent {
+		public LatestEvent(Object target, int sequence) {
+			super(target, sequence);
+		}
+		@Override
+		public Object getCoalescingKey() {
+			return getTarget();
+		}
+	}
+	
+	public static class TextListener {
+		private final Map<ReceiveTextEvent, Boolean> seen = new IdentityHashMap<>();
+		private String last = null;
+		public int getInstances() {
+			return seen.size();
+		}
+		public String getLast() {
+			return last;
+		}
+		@Listener
+		public void handleEvent(ReceiveTextEvent event, Object target) {
+			seen.put(event, true);
+			last = event.getText();
+		}
+	}
+	
+	public static class Node implements EventTarget {
+		private final Node parent;
+		private final boolean stable;
+		public Node(Node parent, boolean stable) {
+			this.parent = parent;
+			this.stable = stable;
+		}
+		@Override
+		public Object getBubbleParent() {
+			return parent;
+		}
+		@Override
+		public boolean isBubbleChainStable() {
+			return stable;
+		}
+	}
+	
+	public static class LeafNode extends Node {
+		public LeafNode(Node parent) {
+			super(parent, false);
+		}
+	}
+	
+	public static class TargetTypeListener {
+		int nodes = 0;
+		int leaves = 0;
+		@Listener
+		public void onLeaf(Event event, LeafNode target) {
+			leaves++;
+		}
+		@Listener
+		public void onNode(Event event, Node target) {
+			nodes++;
+		}
+	}
+	
+	public static class CancelListener {
+		@Listener
+		public void handleEvent(Event event, Object target) {
+			event.cancel();
+		}
+	}
 }
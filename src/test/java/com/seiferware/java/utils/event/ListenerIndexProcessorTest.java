@@ -0,0 +1,97 @@
+package com.seiferware.java.utils.event;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@SuppressWarnings("javadoc")
+public class ListenerIndexProcessorTest {
+	File dir = null;
+	
+	@Before
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("listener-index").toFile();
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		try (Stream<java.nio.file.Path> paths = Files.walk(dir.toPath())) {
+			paths.sorted(Collections.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+		}
+	}
+	
+	@Test
+	public void testGeneratedIndex() throws Exception {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if(compiler == null) {
+			return;
+		}
+		File source = new File(dir, "sample/Counter.java");
+		source.getParentFile().mkdirs();
+		String code = "package sample;\n" +
+				"import com.seiferware.java.utils.event.Event;\n" +
+				"import com.seiferware.java.utils.event.Listener;\n" +
+				"public class Counter {\n" +
+				"\tpublic int count = 0;\n" +
+				"\t@Listener\n" +
+				"\tvoid onEvent(Event event, Object target) {\n" +
+				"\t\tcount++;\n" +
+				"\t}\n" +
+				"\t@Listener\n" +
+				"\tprivate void onHidden(Event event, String target) {\n" +
+				"\t\tcount += 10;\n" +
+				"\t}\n" +
+				"\tpublic static class Nested extends Counter {\n" +
+				"\t\t@Listener\n" +
+				"\t\tpublic void onNested(Event event, Object target) {\n" +
+				"\t\t\tcount += 100;\n" +
+				"\t\t}\n" +
+				"\t}\n" +
+				"}\n";
+		Files.write(source.toPath(), code.getBytes(StandardCharsets.UTF_8));
+		try (StandardJavaFileManager files = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+			Iterable<? extends JavaFileObject> units = files.getJavaFileObjects(source);
+			JavaCompiler.CompilationTask task = compiler.getTask(null, files, null, Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", dir.getPath(), "-s", dir.getPath(), "-proc:only"), null, units);
+			task.setProcessors(Collections.singletonList(new ListenerIndexProcessor()));
+			assertTrue(task.call());
+			Set<File> generated = new HashSet<>(Arrays.asList(new File(dir, "sample/Counter$ListenerIndex.java"), new File(dir, "sample/Counter$Nested$ListenerIndex.java")));
+			for(File f : generated) {
+				assertTrue("An index should be generated for " + f.getName(), f.isFile());
+			}
+			generated.add(source);
+			task = compiler.getTask(null, files, null, Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", dir.getPath(), "-proc:none"), null, files.getJavaFileObjectsFromFiles(generated));
+			assertTrue(task.call());
+		}
+		try (URLClassLoader loader = new URLClassLoader(new URL[] {dir.toURI().toURL()}, getClass().getClassLoader())) {
+			ListenerIndex index = (ListenerIndex) loader.loadClass("sample.Counter$ListenerIndex").getDeclaredConstructor().newInstance();
+			assertEquals(2, index.getEntries().length);
+			for(ListenerIndex.Entry entry : index.getEntries()) {
+				assertEquals("Only non-private methods should be called directly.", entry.getName().equals("onEvent"), entry.getInvoker() != null);
+			}
+			Class<?> nested = loader.loadClass("sample.Counter$Nested");
+			Object listener = nested.getDeclaredConstructor().newInstance();
+			String source2 = "text";
+			Event.addListener(source2, listener);
+			new Event(source2).fire();
+			Event.removeListener(source2, listener);
+			assertEquals("Indexed methods of the class and its superclass should be called.", 111, nested.getField("count").getInt(listener));
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.seiferware.java.utils.event;
+
+import java.nio.ByteBuffer;
+
+@SuppressWarnings("javadoc")
+public class NumberEvent extends Event {
+	public static final EventCodec<NumberEvent> CODEC = new EventCodec<NumberEvent>() {
+		@Override
+		public NumberEvent decode(Object target, ByteBuffer in) {
+			return new NumberEvent(target, in.getInt());
+		}
+		@Override
+		public void encode(NumberEvent event, ByteBuffer out) {
+			out.putInt(event.getNumber());
+		}
+	};
+	private final int number;
+	public NumberEvent(Object target, int number) {
+		super(target);
+		this.number = number;
+	}
+	public int getNumber() {
+		return number;
+	}
+}
@@ -0,0 +1,101 @@
+package com.seiferware.java.utils.event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares passing an event through {@link SharedMemoryEventChannel} with passing the same encoded event over a loopback
+ * TCP connection. Each operation sends one event and receives and fires it on the other side. Both ends run on the
+ * benchmark thread, so the scores measure the cost of the transport rather than scheduling. Run it with the JMH runner
+ * from the test classpath, for example {@code java -cp <test classpath> org.openjdk.jmh.Main
+ * SharedMemoryEventChannelBenchmark}.
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SharedMemoryEventChannelBenchmark {
+	private static final int TYPE_ID = 1;
+	private static final int RECORD_SIZE = 16;
+	final Object target = new Object();
+	final NumberEvent event = new NumberEvent(target, 42);
+	File file;
+	SharedMemoryEventChannel producer;
+	SharedMemoryEventChannel consumer;
+	Socket client;
+	Socket server;
+	OutputStream out;
+	InputStream in;
+	final ByteBuffer sendBuffer = ByteBuffer.allocate(RECORD_SIZE);
+	final ByteBuffer receiveBuffer = ByteBuffer.allocate(RECORD_SIZE);
+	@Benchmark
+	public int loopbackSocket() throws Exception {
+		sendBuffer.clear();
+		sendBuffer.putInt(TYPE_ID).putLong(1);
+		NumberEvent.CODEC.encode(event, sendBuffer);
+		out.write(sendBuffer.array(), 0, sendBuffer.position());
+		byte[] data = receiveBuffer.array();
+		for(int n = 0; n < RECORD_SIZE; ) {
+			int read = in.read(data, n, RECORD_SIZE - n);
+			if(read < 0) {
+				throw new IllegalStateException("The connection was closed.");
+			}
+			n += read;
+		}
+		receiveBuffer.clear();
+		receiveBuffer.getInt();
+		receiveBuffer.getLong();
+		NumberEvent.CODEC.decode(target, receiveBuffer).fire();
+		return 1;
+	}
+	@Setup
+	public void setUp() throws Exception {
+		file = File.createTempFile("bench", ".ring");
+		file.delete();
+		consumer = new SharedMemoryEventChannel(file, 1 << 20, false);
+		producer = new SharedMemoryEventChannel(file, 1 << 20, false);
+		consumer.register(TYPE_ID, NumberEvent.class, NumberEvent.CODEC);
+		producer.register(TYPE_ID, NumberEvent.class, NumberEvent.CODEC);
+		try (ServerSocket listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			client = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort());
+			server = listener.accept();
+		}
+		client.setTcpNoDelay(true);
+		out = client.getOutputStream();
+		in = server.getInputStream();
+	}
+	@Benchmark
+	public int sharedMemory() {
+		producer.send(event, 1);
+		return consumer.receive(id -> target, 1);
+	}
+	@TearDown
+	public void tearDown() throws Exception {
+		producer.close();
+		consumer.close();
+		file.delete();
+		client.close();
+		server.close();
+	}
+}
@@ -0,0 +1,92 @@
+package com.seiferware.java.utils.event;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@SuppressWarnings("javadoc")
+public class SharedMemoryEventChannelTest {
+	File file = null;
+	
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("events", ".ring");
+		file.delete();
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		file.delete();
+	}
+	
+	@Test
+	public void testProducersAndConsumer() throws Exception {
+		int producers = 4;
+		int perProducer = 5000;
+		Object source = new Object();
+		int[] last = new int[producers];
+		int[] received = {0, 0};
+		Object target = new Object();
+		Object listener = new Object() {
+			@Listener
+			public void onNumber(NumberEvent event, Object t) {
+				int producer = event.getNumber() / perProducer;
+				int sequence = event.getNumber() % perProducer;
+				if(sequence != last[producer]) {
+					received[1]++;
+				}
+				last[producer] = sequence + 1;
+				received[0]++;
+			}
+		};
+		Event.addListener(target, listener);
+		// Each side maps the file separately, as separate processes would.
+		try (SharedMemoryEventChannel consumer = new SharedMemoryEventChannel(file, 4096, true); SharedMemoryEventChannel producer = new SharedMemoryEventChannel(file, 4096, true)) {
+			consumer.register(7, NumberEvent.class, NumberEvent.CODEC);
+			producer.register(7, NumberEvent.class, NumberEvent.CODEC);
+			List<Thread> threads = new ArrayList<>();
+			for(int p = 0; p < producers; p++) {
+				int base = p * perProducer;
+				Thread t = new Thread(() -> {
+					for(int i = 0; i < perProducer; i++) {
+						NumberEvent event = new NumberEvent(source, base + i);
+						while(!producer.send(event, 1)) {
+							Thread.yield();
+						}
+					}
+				});
+				threads.add(t);
+				t.start();
+			}
+			long deadline = System.nanoTime() + 30000000000L;
+			while(received[0] < producers * perProducer && System.nanoTime() < deadline) {
+				consumer.receive(id -> id == 1 ? target : null, 100);
+			}
+			for(Thread t : threads) {
+				t.join();
+			}
+			assertEquals("Every event should be received.", producers * perProducer, received[0]);
+			assertEquals("Each producer's events should arrive in order.", 0, received[1]);
+			assertEquals(0, consumer.getPendingBytes());
+		} finally {
+			Event.removeListener(target, listener);
+		}
+	}
+	
+	@Test
+	public void testCapacityMismatch() throws Exception {
+		new SharedMemoryEventChannel(file, 4096, false).close();
+		try {
+			new SharedMemoryEventChannel(file, 8192, false).close();
+			fail("A file created with another capacity should be rejected.");
+		} catch (IOException expected) {
+		}
+	}
+}
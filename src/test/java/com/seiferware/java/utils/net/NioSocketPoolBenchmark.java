@@ -0,0 +1,112 @@
+package com.seiferware.java.utils.net;
+
+import com.seiferware.java.utils.event.Event;
+import com.seiferware.java.utils.event.Listener;
+import com.seiferware.java.utils.event.net.SocketDataEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures echo round trips through {@link NioSocketPool} over loopback, as the number of reactors and connections
+ * grows. Each operation sends a message on every one of the calling thread's connections and waits for all of the
+ * replies, so the messages per second are the score times the number of connections per thread. Run it with the JMH
+ * runner from the test classpath, for example {@code java -cp <test classpath> org.openjdk.jmh.Main
+ * NioSocketPoolBenchmark -t 8}.
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class NioSocketPoolBenchmark {
+	private static final int MESSAGE_SIZE = 128;
+	@Param({"1", "2", "4"})
+	public int reactors;
+	@Param({"1", "16", "64"})
+	public int connectionsPerThread;
+	NioSocketPool pool;
+	@Benchmark
+	public void echo(Client client) throws Exception {
+		for(OutputStream out : client.outputs) {
+			out.write(client.message);
+		}
+		for(InputStream in : client.inputs) {
+			for(int n = 0; n < MESSAGE_SIZE; ) {
+				int read = in.read(client.reply, n, MESSAGE_SIZE - n);
+				if(read < 0) {
+					throw new IllegalStateException("The pool closed the connection.");
+				}
+				n += read;
+			}
+		}
+	}
+	@Listener
+	public void onData(SocketDataEvent event, NioSocketPool target) {
+		ByteBuffer copy = ByteBuffer.allocate(event.getData().remaining());
+		copy.put(event.getData()).flip();
+		target.send(event.getSocket(), copy);
+	}
+	@Setup
+	public void setUp() throws Exception {
+		pool = new NioSocketPool(0, reactors);
+		pool.setPooledEvents(true);
+		Event.addListener(pool, this);
+		pool.start();
+		while(pool.getLocalPort() < 0) {
+			Thread.sleep(10);
+		}
+	}
+	@TearDown
+	public void tearDown() {
+		pool.stopAndBlock();
+	}
+	
+	@State(Scope.Thread)
+	public static class Client {
+		Socket[] sockets;
+		OutputStream[] outputs;
+		InputStream[] inputs;
+		final byte[] message = new byte[MESSAGE_SIZE];
+		final byte[] reply = new byte[MESSAGE_SIZE];
+		@Setup
+		public void setUp(NioSocketPoolBenchmark benchmark) throws Exception {
+			int n = benchmark.connectionsPerThread;
+			sockets = new Socket[n];
+			outputs = new OutputStream[n];
+			inputs = new InputStream[n];
+			for(int i = 0; i < n; i++) {
+				sockets[i] = new Socket(InetAddress.getLoopbackAddress(), benchmark.pool.getLocalPort());
+				sockets[i].setTcpNoDelay(true);
+				outputs[i] = sockets[i].getOutputStream();
+				inputs[i] = sockets[i].getInputStream();
+			}
+		}
+		@TearDown
+		public void tearDown() throws Exception {
+			for(Socket s : sockets) {
+				s.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package com.seiferware.java.utils.net;
+
+import static org.junit.Assert.*;
+
+import com.seiferware.java.utils.event.Event;
+import com.seiferware.java.utils.event.Listener;
+import com.seiferware.java.utils.event.net.SocketClosedEvent;
+import com.seiferware.java.utils.event.net.SocketConnectedEvent;
+import com.seiferware.java.utils.event.net.SocketDataEvent;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SuppressWarnings("javadoc")
+public class NioSocketPoolTest {
+	
+	@Test
+	public void testEcho() throws Exception {
+		int clients = 50;
+		NioSocketPool pool = new NioSocketPool(0);
+		CountDownLatch connected = new CountDownLatch(clients);
+		CountDownLatch closed = new CountDownLatch(clients);
+		Event.addListener(pool, new Object() {
+			@Listener
+			public void onConnected(SocketConnectedEvent event, NioSocketPool target) {
+				connected.countDown();
+			}
+			@Listener
+			public void onData(SocketDataEvent event, NioSocketPool target) {
+				ByteBuffer copy = ByteBuffer.allocate(event.getData().remaining());
+				copy.put(event.getData()).flip();
+				target.send(event.getSocket(), copy);
+			}
+			@Listener
+			public void onClosed(SocketClosedEvent event, NioSocketPool target) {
+				closed.countDown();
+			}
+		});
+		pool.start();
+		try {
+			for(int i = 0; i < 100 && pool.getLocalPort() < 0; i++) {
+				Thread.sleep(10);
+			}
+			List<Socket> sockets = new ArrayList<>();
+			for(int i = 0; i < clients; i++) {
+				sockets.add(new Socket(InetAddress.getLoopbackAddress(), pool.getLocalPort()));
+			}
+			assertTrue("Every connection should be accepted.", connected.await(10, TimeUnit.SECONDS));
+			for(int i = 0; i < clients; i++) {
+				OutputStream out = sockets.get(i).getOutputStream();
+				out.write(("client " + i).getBytes(StandardCharsets.UTF_8));
+				out.flush();
+			}
+			for(int i = 0; i < clients; i++) {
+				byte[] expected = ("client " + i).getBytes(StandardCharsets.UTF_8);
+				byte[] actual = new byte[expected.length];
+				InputStream in = sockets.get(i).getInputStream();
+				for(int n = 0; n < actual.length; ) {
+					int read = in.read(actual, n, actual.length - n);
+					assertTrue("The pool should not close the connection.", read >= 0);
+					n += read;
+				}
+				assertEquals("Data sent through the pool should reach the right client.", "client " + i, new String(actual, StandardCharsets.UTF_8));
+			}
+			assertEquals(clients, pool.getConnectionCount());
+			for(Socket s : sockets) {
+				s.close();
+			}
+			assertTrue("Closed connections should be detected.", closed.await(10, TimeUnit.SECONDS));
+			assertEquals(0, pool.getConnectionCount());
+		} finally {
+			pool.stopAndBlock();
+		}
+	}
+	
+	@Test
+	public void testHalfClose() throws Exception {
+		int replySize = 4 << 20;
+		NioSocketPool pool = new NioSocketPool(0);
+		CountDownLatch closed = new CountDownLatch(1);
+		Event.addListener(pool, new Object() {
+			@Listener
+			public void onData(SocketDataEvent event, NioSocketPool target) {
+				// Too large for the socket's buffers, so part of it is still queued when the end of stream arrives.
+				target.send(event.getSocket(), ByteBuffer.allocate(replySize));
+			}
+			@Listener
+			public void onClosed(SocketClosedEvent event, NioSocketPool target) {
+				closed.countDown();
+			}
+		});
+		pool.start();
+		try {
+			for(int i = 0; i < 100 && pool.getLocalPort() < 0; i++) {
+				Thread.sleep(10);
+			}
+			try (Socket s = new Socket(InetAddress.getLoopbackAddress(), pool.getLocalPort())) {
+				s.getOutputStream().write(1);
+				s.shutdownOutput();
+				Thread.sleep(100);
+				InputStream in = s.getInputStream();
+				byte[] buf = new byte[8192];
+				long total = 0;
+				for(int n = in.read(buf); n >= 0; n = in.read(buf)) {
+					total += n;
+				}
+				assertEquals("The reply should be sent in full after the client stops sending.", replySize, total);
+			}
+			assertTrue("The connection should be closed once the reply has been sent.", closed.await(10, TimeUnit.SECONDS));
+			assertEquals(0, pool.getConnectionCount());
+		} finally {
+			pool.stopAndBlock();
+		}
+	}
+	
+	@Test
+	public void testReactors() throws Exception {
+		int clients = 20;
+		NioSocketPool pool = new NioSocketPool(0, 4);
+		Map<Socket, Thread> owners = new ConcurrentHashMap<>();
+		AtomicInteger moved = new AtomicInteger();
+		CountDownLatch echoed = new CountDownLatch(clients);
+		Event.addListener(pool, new Object() {
+			@Listener
+			public void onConnected(SocketConnectedEvent event, NioSocketPool target) {
+				owners.put(event.getSocket(), Thread.currentThread());
+			}
+			@Listener
+			public void onData(SocketDataEvent event, NioSocketPool target) {
+				if(owners.get(event.getSocket()) != Thread.currentThread()) {
+					moved.incrementAndGet();
+				}
+				ByteBuffer copy = ByteBuffer.allocate(event.getData().remaining());
+				copy.put(event.getData()).flip();
+				target.send(event.getSocket(), copy);
+				echoed.countDown();
+			}
+		});
+		pool.start();
+		try {
+			for(int i = 0; i < 100 && pool.getLocalPort() < 0; i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(4, pool.getReactorCount());
+			List<Socket> sockets = new ArrayList<>();
+			for(int i = 0; i < clients; i++) {
+				Socket s = new Socket(InetAddress.getLoopbackAddress(), pool.getLocalPort());
+				s.getOutputStream().write(i);
+				sockets.add(s);
+			}
+			for(int i = 0; i < clients; i++) {
+				assertEquals("Data sent through the pool should reach the right client.", i, sockets.get(i).getInputStream().read());
+			}
+			assertTrue(echoed.await(10, TimeUnit.SECONDS));
+			assertEquals("Connections should be spread evenly across the reactors.", 4, new HashSet<>(owners.values()).size());
+			assertEquals("Each connection's events should stay on its reactor.", 0, moved.get());
+			for(Socket s : sockets) {
+				s.close();
+			}
+		} finally {
+			pool.stopAndBlock();
+		}
+		assertEquals(0, pool.getConnectionCount());
+	}
+}
@@ -0,0 +1,64 @@
+package com.seiferware.java.utils.net;
+
+import static org.junit.Assert.*;
+
+import com.seiferware.java.utils.event.Event;
+import com.seiferware.java.utils.event.Listener;
+import com.seiferware.java.utils.event.net.SocketClosedEvent;
+import com.seiferware.java.utils.event.net.SocketConnectedEvent;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SuppressWarnings("javadoc")
+public class SocketPoolTest {
+	
+	@Test
+	public void testDisconnectDetection() throws Exception {
+		SocketPool pool = new SocketPool(0);
+		BlockingQueue<Socket> connected = new LinkedBlockingQueue<>();
+		AtomicInteger closed = new AtomicInteger();
+		Event.addListener(pool, new Object() {
+			@Listener
+			public void onConnected(SocketConnectedEvent event, SocketPool target) {
+				connected.add(event.getSocket());
+			}
+			@Listener
+			public void onClosed(SocketClosedEvent event, SocketPool target) {
+				closed.incrementAndGet();
+			}
+		});
+		pool.start();
+		try {
+			for(int i = 0; i < 100 && pool.getLocalPort() < 0; i++) {
+				Thread.sleep(10);
+			}
+			Socket client = new Socket(InetAddress.getLoopbackAddress(), pool.getLocalPort());
+			Socket server = connected.poll(10, TimeUnit.SECONDS);
+			assertNotNull("The connection should be accepted.", server);
+			InputStream in = server.getInputStream();
+			client.shutdownOutput();
+			assertEquals(-1, in.read());
+			assertEquals("Reaching the end of the stream should close the connection.", 1, closed.get());
+			server.getOutputStream().write(42);
+			assertEquals("A half-closed connection should still carry the reply.", 42, client.getInputStream().read());
+			client.close();
+			server.close();
+			assertEquals("The connection should only be closed once.", 1, closed.get());
+			client = new Socket(InetAddress.getLoopbackAddress(), pool.getLocalPort());
+			server = connected.poll(10, TimeUnit.SECONDS);
+			assertNotNull(server);
+			server.close();
+			assertEquals("Closing the socket locally should close the connection.", 2, closed.get());
+			client.close();
+		} finally {
+			pool.stopAndBlock();
+		}
+	}
+}